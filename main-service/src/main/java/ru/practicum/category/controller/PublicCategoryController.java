@@ -7,8 +7,10 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.ServletWebRequest;
 import ru.practicum.category.dto.CategoryDto;
 import ru.practicum.category.service.CategoryService;
+import ru.practicum.web.ContentVersions;
 
 import java.util.List;
 
@@ -18,17 +20,25 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PublicCategoryController {
     private final CategoryService categoryService;
+    private final ContentVersions contentVersions;
 
     @GetMapping
     public List<CategoryDto> getCategories(@RequestParam(defaultValue = "0") int from,
-                                           @RequestParam(defaultValue = "10") int size) {
+                                           @RequestParam(defaultValue = "10") int size,
+                                           ServletWebRequest webRequest) {
         log.info("Запрос на получение списка category: from = {}, size = {}", from, size);
+        if (contentVersions.checkNotModified(webRequest, contentVersions.categories(), contentVersions.shared())) {
+            return null;
+        }
         return categoryService.getCategories(from, size);
     }
 
     @GetMapping("/{catId}")
-    public CategoryDto getCategoryById(@PathVariable Long catId) {
+    public CategoryDto getCategoryById(@PathVariable Long catId, ServletWebRequest webRequest) {
         log.info("Запрос на получение category по id {}", catId);
+        if (contentVersions.checkNotModified(webRequest, contentVersions.categories(), contentVersions.shared())) {
+            return null;
+        }
         return categoryService.getCategoryById(catId);
     }
 }
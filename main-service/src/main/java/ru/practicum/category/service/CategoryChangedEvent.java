@@ -0,0 +1,7 @@
+package ru.practicum.category.service;
+
+/**
+ * Публикуется после создания, переименования или удаления категории.
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -2,6 +2,7 @@ package ru.practicum.category.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +13,7 @@ import ru.practicum.category.dto.CategoryRequestDto;
 import ru.practicum.category.mapper.CategoryMapper;
 import ru.practicum.category.model.Category;
 import ru.practicum.category.repository.CategoryRepository;
+import ru.practicum.category.service.CategoryChangedEvent;
 import ru.practicum.category.service.CategoryService;
 import ru.practicum.event.repository.EventRepository;
 import ru.practicum.exception.ConflictException;
@@ -28,11 +30,13 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public CategoryDto createCategory(CategoryRequestDto categoryRequestDto) {
         Category category = categoryMapper.toCategory(categoryRequestDto);
         CategoryDto categoryDto = categoryMapper.toCategoryDto(categoryRepository.save(category));
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryDto.getId()));
         log.info("Category с id {} успешно создана", categoryDto.getId());
         return categoryDto;
     }
@@ -46,6 +50,7 @@ public class CategoryServiceImpl implements CategoryService {
         Category oldCategory = checkCategory(categoryId);
         oldCategory.setName(categoryRequestDto.getName());
         CategoryDto categoryDto = categoryMapper.toCategoryDto(categoryRepository.save(oldCategory));
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
         log.info("Category с id {} успешно обновлена", categoryDto.getId());
         return categoryDto;
     }
@@ -57,6 +62,7 @@ public class CategoryServiceImpl implements CategoryService {
             throw new ConflictException("Нельзя удалить категорию, к которой привязаны события");
         }
         categoryRepository.deleteById(categoryId);
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
         log.info("Category с id {} успешно удалена", categoryId);
     }
 
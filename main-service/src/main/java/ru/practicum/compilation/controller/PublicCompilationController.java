@@ -2,15 +2,16 @@ package ru.practicum.compilation.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
-import ru.practicum.compilation.dto.CompilationDto;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.practicum.compilation.dto.RenderedJson;
 import ru.practicum.compilation.service.CompilationService;
-
-import java.util.List;
+import ru.practicum.web.ContentVersions;
 
 @Slf4j
 @RestController
@@ -18,18 +19,27 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PublicCompilationController {
     private final CompilationService compilationService;
+    private final ContentVersions contentVersions;
 
     @GetMapping("/{compId}")
-    public CompilationDto getCompilationById(@PathVariable Long compId) {
+    public ResponseEntity<byte[]> getCompilationById(@PathVariable Long compId, ServletWebRequest webRequest) {
         log.info("Запрос на получение compilation с id {}", compId);
-        return compilationService.getCompilationById(compId);
+        return toResponse(compilationService.getCompilationById(compId), webRequest);
     }
 
     @GetMapping
-    public List<CompilationDto> getCompilations(@RequestParam(required = false) Boolean pinned,
-                                                @RequestParam(defaultValue = "0") int from,
-                                                @RequestParam(defaultValue = "10") int size) {
+    public ResponseEntity<byte[]> getCompilations(@RequestParam(required = false) Boolean pinned,
+                                                  @RequestParam(defaultValue = "0") int from,
+                                                  @RequestParam(defaultValue = "10") int size,
+                                                  ServletWebRequest webRequest) {
         log.info("запрос на получение списка compilation: from = {}, size = {}", from, size);
-        return compilationService.getCompilations(pinned, from, size);
+        return toResponse(compilationService.getCompilations(pinned, from, size), webRequest);
+    }
+
+    private ResponseEntity<byte[]> toResponse(RenderedJson rendered, ServletWebRequest webRequest) {
+        if (contentVersions.checkNotModified(webRequest, rendered.version(), contentVersions.shared())) {
+            return null;
+        }
+        return rendered.toResponseEntity();
     }
 }
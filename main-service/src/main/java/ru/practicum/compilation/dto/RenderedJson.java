@@ -0,0 +1,16 @@
+package ru.practicum.compilation.dto;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Готовое JSON-тело ответа и время его последнего изменения в миллисекундах.
+ */
+public record RenderedJson(byte[] body, long version) {
+
+    public ResponseEntity<byte[]> toResponseEntity() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
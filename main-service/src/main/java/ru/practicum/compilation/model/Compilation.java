@@ -14,11 +14,14 @@ import lombok.NoArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import ru.practicum.event.model.Event;
 
 import java.util.Set;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "compilations")
 @Table(name = "compilations")
 @Getter
 @Setter
@@ -38,6 +41,7 @@ public class Compilation {
     private String title;
 
     @ToString.Exclude
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "compilation-events")
     @ManyToMany
     @JoinTable(name = "compilations_events",
     joinColumns = @JoinColumn(name = "compilation_id"),
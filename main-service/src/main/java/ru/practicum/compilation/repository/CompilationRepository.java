@@ -1,12 +1,19 @@
 package ru.practicum.compilation.repository;
 
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.compilation.model.Compilation;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
 
-    List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+    @Query("SELECT c FROM Compilation c")
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator"})
+    List<Compilation> findAllWithEvents();
+
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator"})
+    List<Compilation> findAllWithEventsByIdIn(Collection<Long> ids);
 }
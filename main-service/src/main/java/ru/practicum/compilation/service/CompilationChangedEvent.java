@@ -0,0 +1,7 @@
+package ru.practicum.compilation.service;
+
+/**
+ * Публикуется после создания, изменения или удаления подборки.
+ */
+public record CompilationChangedEvent(Long compilationId) {
+}
@@ -0,0 +1,244 @@
+package ru.practicum.compilation.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.category.service.CategoryChangedEvent;
+import ru.practicum.compilation.dto.RenderedJson;
+import ru.practicum.compilation.mapper.CompilationMapper;
+import ru.practicum.compilation.model.Compilation;
+import ru.practicum.compilation.repository.CompilationRepository;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.service.EventsChangedEvent;
+import ru.practicum.exception.NotFoundException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Готовые JSON-ответы публичного API подборок.
+ * Подборка сериализуется один раз и пересобирается после коммита изменений самой подборки, её событий
+ * или их категорий, поэтому чтение не обращается к базе. Подборок немного, в памяти хранятся все.
+ * Версия подборки — время, когда её JSON последний раз изменился; версия списков — время последнего
+ * изменения любой подборки.
+ * Изменения, сделанные другими экземплярами сервиса, подхватываются периодической полной пересборкой.
+ */
+@Slf4j
+@Component
+public class CompilationReadModel {
+    private final CompilationRepository compilationRepository;
+    private final CompilationMapper compilationMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTransaction;
+    // пересборки выполняются по одной, иначе снимок, прочитанный раньше, мог бы перезаписать более новый
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    // null, пока подборки не загружены или после ошибки пересборки
+    private volatile Snapshot snapshot;
+
+    public CompilationReadModel(CompilationRepository compilationRepository,
+                                CompilationMapper compilationMapper,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.compilationRepository = compilationRepository;
+        this.compilationMapper = compilationMapper;
+        this.objectMapper = objectMapper;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        // слушатели вызываются после коммита, когда ресурсы исходной транзакции ещё привязаны к потоку
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public RenderedJson getCompilation(Long compId) {
+        RenderedCompilation compilation = current().compilations().get(compId);
+        if (compilation == null) {
+            throw new NotFoundException("Compilation с id " + compId + " не найдена");
+        }
+        return new RenderedJson(compilation.body(), compilation.version());
+    }
+
+    public RenderedJson getCompilations(Boolean pinned, int from, int size) {
+        Snapshot current = current();
+        List<RenderedCompilation> page = current.compilations().values().stream()
+                .filter(compilation -> pinned == null || compilation.pinned() == pinned)
+                .skip(from)
+                .limit(size)
+                .toList();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.write('[');
+        for (RenderedCompilation compilation : page) {
+            if (body.size() > 1) {
+                body.write(',');
+            }
+            body.writeBytes(compilation.body());
+        }
+        body.write(']');
+        return new RenderedJson(body.toByteArray(), current.version());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCompilationChanged(CompilationChangedEvent event) {
+        rebuild(compilations -> Set.of(event.compilationId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventsChanged(EventsChangedEvent event) {
+        rebuild(compilations -> affected(compilations,
+                compilation -> !Collections.disjoint(compilation.eventIds(), event.eventIds())));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuild(compilations -> affected(compilations,
+                compilation -> compilation.categoryIds().contains(event.categoryId())));
+    }
+
+    /**
+     * Перечитывает все подборки; JSON, который не изменился, сохраняет прежнюю версию.
+     */
+    @Scheduled(initialDelayString = "${ewm.compilations.resync.initial-delay:PT1M}",
+            fixedDelayString = "${ewm.compilations.resync.interval:PT1M}")
+    public void resync() {
+        rebuildLock.lock();
+        try {
+            Snapshot loaded = snapshot;
+            if (loaded == null) {
+                return;
+            }
+            long version = nextVersion(loaded.version());
+            Map<Long, RenderedCompilation> all = readTransaction.execute(status ->
+                    render(compilationRepository.findAllWithEvents(), loaded.compilations(), version));
+            boolean changed = all.size() != loaded.compilations().size()
+                    || all.values().stream().anyMatch(compilation -> compilation.version() == version);
+            if (changed) {
+                snapshot = new Snapshot(Collections.unmodifiableNavigableMap(new TreeMap<>(all)), version);
+                log.info("Подборки изменились вне этого экземпляра и пересобраны");
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ошибка при сверке подборок с базой: {}", e.toString());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot loaded = snapshot;
+        if (loaded != null) {
+            return loaded;
+        }
+        rebuildLock.lock();
+        try {
+            if (snapshot == null) {
+                long version = nextVersion(0);
+                Map<Long, RenderedCompilation> all = readTransaction.execute(status ->
+                        render(compilationRepository.findAllWithEvents(), Map.of(), version));
+                snapshot = new Snapshot(Collections.unmodifiableNavigableMap(new TreeMap<>(all)), version);
+                log.info("Загружено подборок: {}", all.size());
+            }
+            return snapshot;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void rebuild(Function<NavigableMap<Long, RenderedCompilation>, Set<Long>> selector) {
+        rebuildLock.lock();
+        try {
+            Snapshot loaded = snapshot;
+            // ещё не загруженные подборки будут прочитаны целиком при первом запросе
+            if (loaded == null) {
+                return;
+            }
+            Set<Long> ids = selector.apply(loaded.compilations());
+            if (ids.isEmpty()) {
+                return;
+            }
+            long version = nextVersion(loaded.version());
+            Map<Long, RenderedCompilation> rendered = readTransaction.execute(status ->
+                    render(compilationRepository.findAllWithEventsByIdIn(ids), loaded.compilations(), version));
+            NavigableMap<Long, RenderedCompilation> updated = new TreeMap<>(loaded.compilations());
+            boolean changed = false;
+            for (Long id : ids) {
+                RenderedCompilation compilation = rendered.get(id);
+                RenderedCompilation previous = compilation == null ? updated.remove(id) : updated.put(id, compilation);
+                changed |= previous == null || compilation == null || previous.version() != compilation.version();
+            }
+            snapshot = new Snapshot(Collections.unmodifiableNavigableMap(updated),
+                    changed ? version : loaded.version());
+            log.debug("Пересобраны подборки {}", ids);
+        } catch (RuntimeException e) {
+            snapshot = null;
+            log.warn("Ошибка при пересборке подборок, они будут загружены заново: {}", e.toString());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private static Set<Long> affected(NavigableMap<Long, RenderedCompilation> compilations,
+                                      Predicate<RenderedCompilation> predicate) {
+        return compilations.entrySet().stream()
+                .filter(entry -> predicate.test(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Сериализует подборки; если JSON не изменился, сохраняется прежняя версия.
+     */
+    private Map<Long, RenderedCompilation> render(Collection<Compilation> found,
+                                                  Map<Long, RenderedCompilation> previous, long version) {
+        Map<Long, RenderedCompilation> rendered = new HashMap<>();
+        for (Compilation compilation : found) {
+            Set<Event> events = compilation.getEvents() == null ? Set.of() : compilation.getEvents();
+            for (Event event : events) {
+                if (event.getPublishedOn() != null) {
+                    event.setViews(event.getMaterializedViews());
+                }
+            }
+            byte[] body;
+            try {
+                body = objectMapper.writeValueAsBytes(compilationMapper.toCompilationDto(compilation));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+            RenderedCompilation old = previous.get(compilation.getId());
+            rendered.put(compilation.getId(), new RenderedCompilation(
+                    Boolean.TRUE.equals(compilation.getPinned()),
+                    body,
+                    old != null && Arrays.equals(old.body(), body) ? old.version() : version,
+                    events.stream().map(Event::getId).collect(Collectors.toSet()),
+                    events.stream().map(event -> event.getCategory().getId()).collect(Collectors.toSet())));
+        }
+        return rendered;
+    }
+
+    private static long nextVersion(long previous) {
+        return Math.max(previous + 1, System.currentTimeMillis());
+    }
+
+    private record RenderedCompilation(boolean pinned, byte[] body, long version, Set<Long> eventIds,
+                                       Set<Long> categoryIds) {
+    }
+
+    private record Snapshot(NavigableMap<Long, RenderedCompilation> compilations, long version) {
+    }
+}
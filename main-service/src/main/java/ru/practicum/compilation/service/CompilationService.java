@@ -2,10 +2,9 @@ package ru.practicum.compilation.service;
 
 import ru.practicum.compilation.dto.CompilationDto;
 import ru.practicum.compilation.dto.NewCompilationDto;
+import ru.practicum.compilation.dto.RenderedJson;
 import ru.practicum.compilation.dto.UpdateCompilationRequest;
 
-import java.util.List;
-
 public interface CompilationService {
 
     CompilationDto createCompilation(NewCompilationDto newCompilationDto);
@@ -14,7 +13,7 @@ public interface CompilationService {
 
     void delete(Long compId);
 
-    CompilationDto getCompilationById(Long compId);
+    RenderedJson getCompilationById(Long compId);
 
-    List<CompilationDto> getCompilations(Boolean pinned, int from, int size);
+    RenderedJson getCompilations(Boolean pinned, int from, int size);
 }
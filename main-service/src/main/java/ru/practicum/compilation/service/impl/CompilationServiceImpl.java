@@ -2,22 +2,24 @@ package ru.practicum.compilation.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.compilation.dto.CompilationDto;
 import ru.practicum.compilation.dto.NewCompilationDto;
+import ru.practicum.compilation.dto.RenderedJson;
 import ru.practicum.compilation.dto.UpdateCompilationRequest;
 import ru.practicum.compilation.mapper.CompilationMapper;
 import ru.practicum.compilation.model.Compilation;
 import ru.practicum.compilation.repository.CompilationRepository;
+import ru.practicum.compilation.service.CompilationChangedEvent;
+import ru.practicum.compilation.service.CompilationReadModel;
 import ru.practicum.compilation.service.CompilationService;
 import ru.practicum.event.repository.EventRepository;
 import ru.practicum.exception.NotFoundException;
 
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 @Slf4j
@@ -28,6 +30,8 @@ public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
     private final CompilationMapper compilationMapper;
+    private final CompilationReadModel compilationReadModel;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public CompilationDto createCompilation(NewCompilationDto newCompilationDto) {
@@ -40,6 +44,7 @@ public class CompilationServiceImpl implements CompilationService {
         if (compilationDto.getEvents() == null) {
             compilationDto.setEvents(new HashSet<>());
         }
+        eventPublisher.publishEvent(new CompilationChangedEvent(compilationDto.getId()));
         log.info("Compilation с id {} успешно создан", compilationDto.getId());
         return compilationDto;
     }
@@ -58,6 +63,7 @@ public class CompilationServiceImpl implements CompilationService {
             compilation.setTitle(updateCompilationRequest.getTitle());
         }
         CompilationDto compilationDto = compilationMapper.toCompilationDto(compilationRepository.save(compilation));
+        eventPublisher.publishEvent(new CompilationChangedEvent(compId));
         log.info("Compilation с id {} успешно обновлен", compilationDto.getId());
         return compilationDto;
     }
@@ -66,26 +72,21 @@ public class CompilationServiceImpl implements CompilationService {
     public void delete(Long compId) {
         checkCompilation(compId);
         compilationRepository.deleteById(compId);
+        eventPublisher.publishEvent(new CompilationChangedEvent(compId));
         log.info("Compilation с id {} успешно удалена", compId);
     }
 
+    // ответы берутся из памяти, транзакция и соединение с базой не нужны
     @Override
-    @Transactional(readOnly = true)
-    public CompilationDto getCompilationById(Long compId) {
-        return compilationMapper.toCompilationDto(checkCompilation(compId));
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public RenderedJson getCompilationById(Long compId) {
+        return compilationReadModel.getCompilation(compId);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<CompilationDto> getCompilations(Boolean pinned, int from, int size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        if (pinned != null) {
-            return compilationRepository.findAllByPinned(pinned, pageable).stream()
-                    .map(compilationMapper::toCompilationDto).toList();
-        } else {
-            return compilationRepository.findAll(pageable).stream()
-                    .map(compilationMapper::toCompilationDto).toList();
-        }
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public RenderedJson getCompilations(Boolean pinned, int from, int size) {
+        return compilationReadModel.getCompilations(pinned, from, size);
     }
 
     private Compilation checkCompilation(Long compId) {
@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,15 +29,17 @@ public class AdminEventController {
     private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
 
     @GetMapping
-    public List<EventFullDto> getEventsAdmin(@RequestParam(required = false) List<Long> userIds,
-                                             @RequestParam(required = false) List<String> states,
-                                             @RequestParam(required = false) List<Long> categories,
-                                             @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeStart,
-                                             @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeEnd,
-                                             @RequestParam(defaultValue = "0") Integer from,
-                                             @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<EventFullDto>> getEventsAdmin(@RequestParam(required = false) List<Long> userIds,
+                                                             @RequestParam(required = false) List<String> states,
+                                                             @RequestParam(required = false) List<Long> categories,
+                                                             @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeStart,
+                                                             @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeEnd,
+                                                             @RequestParam(defaultValue = "0") Integer from,
+                                                             @RequestParam(defaultValue = "10") Integer size,
+                                                             @RequestParam(required = false) String cursor) {
         log.info("Запрос на поиск событий");
-        return eventService.getEventsAdmin(userIds, states, categories, rangeStart, rangeEnd, from, size);
+        return eventService.getEventsAdmin(userIds, states, categories, rangeStart, rangeEnd, from, size, cursor)
+                .toResponseEntity();
 
     }
 
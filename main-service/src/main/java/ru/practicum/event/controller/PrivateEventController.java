@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,11 +28,12 @@ public class PrivateEventController {
     private final EventService eventService;
 
     @GetMapping
-    public List<EventShortDto> getEvents(@PathVariable Long userId,
-                                         @RequestParam(defaultValue = "0") Integer from,
-                                         @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<EventShortDto>> getEvents(@PathVariable Long userId,
+                                                         @RequestParam(defaultValue = "0") Integer from,
+                                                         @RequestParam(defaultValue = "10") Integer size,
+                                                         @RequestParam(required = false) String cursor) {
         log.info("Запрос на получение событий, добавленых текущим пользователем");
-        return eventService.getEvents(userId, from, size);
+        return eventService.getEvents(userId, from, size, cursor).toResponseEntity();
     }
 
     @PostMapping
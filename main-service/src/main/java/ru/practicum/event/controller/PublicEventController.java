@@ -4,16 +4,18 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.ServletWebRequest;
 import ru.practicum.event.dto.EventFullDto;
 import ru.practicum.event.dto.EventShortDto;
 import ru.practicum.event.service.EventService;
+import ru.practicum.event.service.ViewStatsService;
+import ru.practicum.web.ContentVersions;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -27,29 +29,67 @@ public class PublicEventController {
     private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
 
     private final EventService eventService;
+    private final ViewStatsService viewStatsService;
+    private final ContentVersions contentVersions;
 
     @GetMapping
-    public List<EventShortDto> getEventsPublic(@RequestParam(required = false) String text,
-                                               @RequestParam(required = false) List<Long> categories,
-                                               @RequestParam(required = false) Boolean paid,
-                                               @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeStart,
-                                               @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeEnd,
-                                               @RequestParam(required = false) Boolean onlyAvailable,
-                                               @RequestParam(required = false) String sort,
-                                               @RequestParam(defaultValue = "0") int from,
-                                               @RequestParam(defaultValue = "10") int size,
-                                               HttpServletRequest httpServletRequest) {
+    public ResponseEntity<List<EventShortDto>> getEventsPublic(@RequestParam(required = false) String text,
+                                                               @RequestParam(required = false) List<Long> categories,
+                                                               @RequestParam(required = false) Boolean paid,
+                                                               @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeStart,
+                                                               @RequestParam(required = false) @DateTimeFormat(pattern = DATE_TIME_PATTERN) LocalDateTime rangeEnd,
+                                                               @RequestParam(required = false) Boolean onlyAvailable,
+                                                               @RequestParam(required = false) Double lat,
+                                                               @RequestParam(required = false) Double lon,
+                                                               @RequestParam(required = false) Double radius,
+                                                               @RequestParam(required = false) String sort,
+                                                               @RequestParam(defaultValue = "0") int from,
+                                                               @RequestParam(defaultValue = "10") int size,
+                                                               @RequestParam(required = false) String cursor,
+                                                               HttpServletRequest httpServletRequest,
+                                                               ServletWebRequest webRequest) {
         log.info("Запрос на получение событий с возможностью фильтрации");
-        return eventService.getEventsPublic(text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort,
-                from, size, httpServletRequest);
+        if (contentVersions.checkNotModified(webRequest, contentVersions.eventLists(),
+                contentVersions.revalidated())) {
+            // просмотр учитывается и без формирования ответа
+            viewStatsService.registerView("/events", httpServletRequest.getRemoteAddr());
+            return null;
+        }
+        return eventService.getEventsPublic(text, categories, paid, rangeStart, rangeEnd, onlyAvailable,
+                lat, lon, radius, sort, from, size, cursor, httpServletRequest).toResponseEntity();
     }
 
 
     @GetMapping("/{eventId}")
-    @ResponseStatus(HttpStatus.OK)
-    public EventFullDto getEventByIdPublic(@PathVariable Long eventId, HttpServletRequest httpServletRequest) {
+    public EventFullDto getEventByIdPublic(@PathVariable Long eventId, HttpServletRequest httpServletRequest,
+                                           ServletWebRequest webRequest) {
         log.info("Запрос на получение подробной информации об опубликованном событии по его идентификатору");
-        return eventService.getEventByIdPublic(eventId, httpServletRequest);
+        long version = contentVersions.events();
+        if (!contentVersions.isPublished(eventId, version)) {
+            EventFullDto event = eventService.getEventByIdPublic(eventId, httpServletRequest);
+            contentVersions.markPublished(eventId, version);
+            if (contentVersions.checkNotModified(webRequest, eventId, version, event.getViews(),
+                    contentVersions.revalidated())) {
+                return null;
+            }
+            return event;
+        }
+        // событие не менялось с тех пор, как было отдано опубликованным: 404 невозможен и база не нужна
+        viewStatsService.registerView("/events/" + eventId, httpServletRequest.getRemoteAddr());
+        long views;
+        try {
+            views = viewStatsService.getViews(List.of(eventId)).getOrDefault(eventId, 0L);
+        } catch (RuntimeException e) {
+            log.warn("Просмотры события {} не получены из stat-server: {}", eventId, e.toString());
+            return eventService.getViewedEventByIdPublic(eventId);
+        }
+        if (contentVersions.checkNotModified(webRequest, eventId, version, views, contentVersions.revalidated())) {
+            return null;
+        }
+        // тело с теми же просмотрами, что и в выставленном ETag
+        EventFullDto event = eventService.getViewedEventByIdPublic(eventId);
+        event.setViews(views);
+        return event;
     }
 
 
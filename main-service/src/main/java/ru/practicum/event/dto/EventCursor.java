@@ -0,0 +1,58 @@
+package ru.practicum.event.dto;
+
+import ru.practicum.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в списке событий, упорядоченном по (eventDate, id) или по (views DESC, id DESC).
+ * Для второго порядка заполнено поле views, для первого — eventDate.
+ * Клиенту передаётся в виде непрозрачной строки base64url.
+ */
+public record EventCursor(LocalDateTime eventDate, Long views, Long id) {
+    private static final String SEPARATOR = "|";
+    private static final String BY_EVENT_DATE = "d";
+    private static final String BY_VIEWS = "v";
+
+    public static EventCursor afterByEventDate(LocalDateTime eventDate, Long id) {
+        return new EventCursor(eventDate, null, id);
+    }
+
+    public static EventCursor afterByViews(Long views, Long id) {
+        return new EventCursor(null, views, id);
+    }
+
+    public static EventCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR);
+            if (parts.length == 3 && parts[0].equals(BY_EVENT_DATE)) {
+                return new EventCursor(LocalDateTime.parse(parts[1]), null, Long.parseLong(parts[2]));
+            }
+            if (parts.length == 3 && parts[0].equals(BY_VIEWS)) {
+                return new EventCursor(null, Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw invalid(token);
+        }
+        throw invalid(token);
+    }
+
+    public boolean byViews() {
+        return views != null;
+    }
+
+    public String encode() {
+        String value = byViews()
+                ? BY_VIEWS + SEPARATOR + views + SEPARATOR + id
+                : BY_EVENT_DATE + SEPARATOR + eventDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ValidationException invalid(String token) {
+        return new ValidationException("Некорректный cursor: " + token);
+    }
+}
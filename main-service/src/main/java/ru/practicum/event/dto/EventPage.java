@@ -0,0 +1,27 @@
+package ru.practicum.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Страница событий и cursor следующей страницы, если она может существовать.
+ */
+@Data
+@AllArgsConstructor
+public class EventPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private List<T> events;
+    private String nextCursor;
+
+    public ResponseEntity<List<T>> toResponseEntity() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(events);
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.event.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Колонки события, достаточные для EventShortDto и cursor следующей страницы.
+ * Загружается запросом без управляемых сущностей и без длинного описания события.
+ */
+public record EventShortProjection(Long id,
+                                   String annotation,
+                                   Long categoryId,
+                                   String categoryName,
+                                   Integer confirmedRequests,
+                                   LocalDateTime eventDate,
+                                   Long initiatorId,
+                                   String initiatorName,
+                                   Boolean paid,
+                                   String title,
+                                   LocalDateTime publishedOn,
+                                   Long materializedViews) {
+}
@@ -5,6 +5,7 @@ import org.mapstruct.Mapping;
 import ru.practicum.category.mapper.CategoryMapper;
 import ru.practicum.event.dto.EventFullDto;
 import ru.practicum.event.dto.EventShortDto;
+import ru.practicum.event.dto.EventShortProjection;
 import ru.practicum.event.dto.NewEventDto;
 import ru.practicum.event.model.Event;
 import ru.practicum.user.mapper.UserMapper;
@@ -18,6 +19,13 @@ public interface EventMapper {
     @Mapping(source = "views", target = "views")
     EventShortDto toShortDto(Event event);
 
+    @Mapping(source = "projection.categoryId", target = "category.id")
+    @Mapping(source = "projection.categoryName", target = "category.name")
+    @Mapping(source = "projection.initiatorId", target = "initiator.id")
+    @Mapping(source = "projection.initiatorName", target = "initiator.name")
+    @Mapping(source = "views", target = "views")
+    EventShortDto toShortDto(EventShortProjection projection, Long views);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "initiator", ignore = true)
     @Mapping(target = "state", ignore = true)
@@ -11,6 +11,8 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.Transient;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
@@ -25,12 +27,21 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "events")
+@NamedEntityGraph(name = Event.WITH_DETAILS, attributeNodes = {
+        @NamedAttributeNode("category"),
+        @NamedAttributeNode("initiator"),
+        @NamedAttributeNode("location")
+})
 @Getter
 @Setter
 @ToString
 @AllArgsConstructor
 @NoArgsConstructor
 public class Event {
+    /**
+     * Граф загрузки связей, которые нужны для EventFullDto и EventShortDto.
+     */
+    public static final String WITH_DETAILS = "Event.withDetails";
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -82,6 +93,9 @@ public class Event {
     @Column(name = "published_on")
     private LocalDateTime publishedOn;
 
+    @Column(name = "materialized_views", insertable = false, updatable = false)
+    private Long materializedViews;
+
     @Transient
     private Long views;
 
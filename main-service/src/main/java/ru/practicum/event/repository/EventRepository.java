@@ -1,18 +1,47 @@
 package ru.practicum.event.repository;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.event.model.Event;
 
+import java.util.Optional;
 import java.util.Set;
 
-public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event>,
+        EventRepositoryCustom {
 
-    Set<Event> findAllByIdIn(Set<Long> ids);
+    @Override
+    @EntityGraph(Event.WITH_DETAILS)
+    Optional<Event> findById(Long id);
 
-    Page<Event> findAllByInitiatorId(Long userId, Pageable pageable);
+    @EntityGraph(Event.WITH_DETAILS)
+    Set<Event> findAllByIdIn(Set<Long> ids);
 
     boolean existsByCategoryId(Long categoryId);
+
+    /**
+     * Атомарно занимает места на событии, если лимит участников позволяет.
+     * Условие проверяется под блокировкой строки, поэтому параллельные заявки не превышают лимит.
+     *
+     * @return 1, если места заняты, иначе 0
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Event e
+            SET e.confirmedRequests = e.confirmedRequests + :count
+            WHERE e.id = :eventId
+              AND (e.participantLimit = 0 OR e.confirmedRequests + :count <= e.participantLimit)
+            """)
+    int reserveSeats(Long eventId, int count);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            UPDATE Event e
+            SET e.confirmedRequests = e.confirmedRequests - 1
+            WHERE e.id = :eventId AND e.confirmedRequests > 0
+            """)
+    int releaseSeat(Long eventId);
 }
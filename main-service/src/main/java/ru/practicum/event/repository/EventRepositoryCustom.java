@@ -0,0 +1,22 @@
+package ru.practicum.event.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.event.dto.EventShortProjection;
+import ru.practicum.event.model.Event;
+
+import java.util.List;
+
+public interface EventRepositoryCustom {
+
+    /**
+     * Возвращает срез событий без запроса общего количества строк.
+     * Категория, инициатор и место загружаются тем же запросом.
+     */
+    List<Event> findEvents(Specification<Event> spec, Sort sort, int offset, int limit);
+
+    /**
+     * То же, что {@link #findEvents}, но только с колонками, нужными для EventShortDto.
+     */
+    List<EventShortProjection> findEventShorts(Specification<Event> spec, Sort sort, int offset, int limit);
+}
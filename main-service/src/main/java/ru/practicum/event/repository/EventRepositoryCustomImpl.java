@@ -0,0 +1,76 @@
+package ru.practicum.event.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import ru.practicum.category.model.Category;
+import ru.practicum.event.dto.EventShortProjection;
+import ru.practicum.event.model.Event;
+import ru.practicum.user.model.User;
+
+import java.util.List;
+
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Event> findEvents(Specification<Event> spec, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Event> query = cb.createQuery(Event.class);
+        Root<Event> root = query.from(Event.class);
+        applySpecification(query, root, spec, sort);
+        return page(entityManager.createQuery(query), offset, limit)
+                .setHint(SpecHints.HINT_SPEC_FETCH_GRAPH, entityManager.getEntityGraph(Event.WITH_DETAILS))
+                .getResultList();
+    }
+
+    @Override
+    public List<EventShortProjection> findEventShorts(Specification<Event> spec, Sort sort, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventShortProjection> query = cb.createQuery(EventShortProjection.class);
+        Root<Event> root = query.from(Event.class);
+        Join<Event, Category> category = root.join("category");
+        Join<Event, User> initiator = root.join("initiator");
+        query.select(cb.construct(EventShortProjection.class,
+                root.get("id"),
+                root.get("annotation"),
+                category.get("id"),
+                category.get("name"),
+                root.get("confirmedRequests"),
+                root.get("eventDate"),
+                initiator.get("id"),
+                initiator.get("name"),
+                root.get("paid"),
+                root.get("title"),
+                root.get("publishedOn"),
+                root.get("materializedViews")));
+        applySpecification(query, root, spec, sort);
+        return page(entityManager.createQuery(query), offset, limit).getResultList();
+    }
+
+    private void applySpecification(CriteriaQuery<?> query, Root<Event> root, Specification<Event> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+    }
+
+    private <T> TypedQuery<T> page(TypedQuery<T> query, int offset, int limit) {
+        return query.setFirstResult(offset).setMaxResults(limit);
+    }
+}
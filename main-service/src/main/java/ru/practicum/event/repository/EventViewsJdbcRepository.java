@@ -0,0 +1,64 @@
+package ru.practicum.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class EventViewsJdbcRepository {
+    // строки с неизменившимся значением не перезаписываются
+    private static final String UPDATE_VIEWS = """
+            UPDATE events e SET materialized_views = v.views
+            FROM unnest(:ids, :views) AS v(id, views)
+            WHERE e.id = v.id AND e.materialized_views <> v.views
+            RETURNING e.id
+            """;
+    private static final String RESET_VIEWS = """
+            UPDATE events SET materialized_views = 0
+            WHERE materialized_views <> 0 AND NOT (id = ANY (:ids))
+            RETURNING id
+            """;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${ewm.views.sync.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Сохраняет количество просмотров событий для сортировки по просмотрам в базе.
+     *
+     * @return id событий, у которых значение изменилось
+     */
+    public List<Long> updateViews(Map<Long, Long> viewsByEventId) {
+        List<Map.Entry<Long, Long>> entries = List.copyOf(viewsByEventId.entrySet());
+        List<Long> changed = new ArrayList<>();
+        for (int from = 0; from < entries.size(); from += batchSize) {
+            List<Map.Entry<Long, Long>> batch = entries.subList(from, Math.min(from + batchSize, entries.size()));
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("ids", new SqlArrayValue("bigint", batch.stream().map(Map.Entry::getKey).toArray()))
+                    .addValue("views", new SqlArrayValue("bigint", batch.stream().map(Map.Entry::getValue).toArray()));
+            changed.addAll(namedParameterJdbcTemplate.queryForList(UPDATE_VIEWS, params, Long.class));
+        }
+        return changed;
+    }
+
+    /**
+     * Обнуляет просмотры событий, которых нет среди eventIds, то есть у которых в stat-server не осталось просмотров.
+     *
+     * @return id событий, у которых значение изменилось
+     */
+    public List<Long> resetViewsExcept(Iterable<Long> eventIds) {
+        List<Long> ids = new ArrayList<>();
+        eventIds.forEach(ids::add);
+        return namedParameterJdbcTemplate.queryForList(RESET_VIEWS,
+                new MapSqlParameterSource("ids", new SqlArrayValue("bigint", ids.toArray())), Long.class);
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.event.service.LocationsDeletedEvent;
+
+import java.util.Optional;
+
+/**
+ * Места с координатами, совпадающими после округления до 1e-5 градуса (около метра), считаются одним местом.
+ * Ключ round(lat * 100000), round(lon * 100000) совпадает с выражениями индексов locations_coordinates_idx
+ * и locations_coordinates_uq.
+ * Найденная строка блокируется FOR KEY SHARE до конца транзакции, чтобы её не удалил LocationCompactor,
+ * пока на неё ещё не ссылается событие.
+ * Строки удаляются в обход Hibernate, поэтому после удаления публикуется LocationsDeletedEvent: кэши мест
+ * сбрасываются после фиксации транзакции, иначе параллельное чтение успело бы вернуть в кэш удаляемые строки.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LocationJdbcRepository {
+    private static final String COORDINATES_KEY = "(round(lat * 100000), round(lon * 100000))";
+    private static final String LOCK_BY_ID = "SELECT id FROM locations WHERE id = ? FOR KEY SHARE";
+    private static final String LOCK_BY_COORDINATES = """
+            SELECT id FROM locations
+            WHERE round(lat * 100000) = round(CAST(? AS DOUBLE PRECISION) * 100000)
+              AND round(lon * 100000) = round(CAST(? AS DOUBLE PRECISION) * 100000)
+            ORDER BY id
+            LIMIT 1
+            FOR KEY SHARE
+            """;
+    // без уникального индекса (до завершения первого сжатия) конфликта не бывает и строка просто вставляется
+    private static final String INSERT =
+            "INSERT INTO locations (lat, lon) VALUES (?, ?) ON CONFLICT DO NOTHING RETURNING id";
+    // дубликаты переносятся на строку с наименьшим id — её же возвращает LOCK_BY_COORDINATES
+    private static final String MERGE_DUPLICATES = """
+            WITH duplicates AS (
+                SELECT id, keep_id
+                FROM (SELECT id, min(id) OVER (PARTITION BY %s) AS keep_id FROM locations) l
+                WHERE id <> keep_id
+                ORDER BY id
+                LIMIT ?
+            ), moved AS (
+                UPDATE events e SET location_id = d.keep_id
+                FROM duplicates d
+                WHERE e.location_id = d.id
+            )
+            DELETE FROM locations l USING duplicates d WHERE l.id = d.id
+            """.formatted(COORDINATES_KEY);
+    private static final String DELETE_ORPHANS = """
+            DELETE FROM locations
+            WHERE id IN (SELECT l.id FROM locations l
+                         WHERE NOT EXISTS (SELECT 1 FROM events e WHERE e.location_id = l.id)
+                         LIMIT ?)
+            """;
+    private static final String UNIQUE_INDEX_EXISTS =
+            "SELECT to_regclass('locations_coordinates_uq') IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public Optional<Long> lockById(long id) {
+        return jdbcTemplate.query(LOCK_BY_ID, (rs, rowNum) -> rs.getLong("id"), id).stream().findFirst();
+    }
+
+    public Optional<Long> lockByCoordinates(double lat, double lon) {
+        return jdbcTemplate.query(LOCK_BY_COORDINATES, (rs, rowNum) -> rs.getLong("id"), lat, lon)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * @return id новой строки или пустой результат, если такое место только что добавила другая транзакция
+     */
+    public Optional<Long> insert(float lat, float lon) {
+        return jdbcTemplate.query(INSERT, (rs, rowNum) -> rs.getLong("id"), lat, lon).stream().findFirst();
+    }
+
+    /**
+     * Переносит события с дубликатов мест на одну строку и удаляет дубликаты.
+     *
+     * @return количество удалённых дубликатов
+     */
+    public int mergeDuplicates(int limit) {
+        return publishIfDeleted(jdbcTemplate.update(MERGE_DUPLICATES, limit));
+    }
+
+    /**
+     * Удаляет места, на которые не ссылается ни одно событие.
+     *
+     * @return количество удалённых строк
+     */
+    public int deleteOrphans(int limit) {
+        return publishIfDeleted(jdbcTemplate.update(DELETE_ORPHANS, limit));
+    }
+
+    public boolean hasUniqueIndex() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(UNIQUE_INDEX_EXISTS, Boolean.class));
+    }
+
+    /**
+     * Сливает оставшиеся дубликаты и создаёт уникальный индекс по координатам.
+     * Вставки мест блокируются до конца транзакции, поэтому новые дубликаты появиться не могут.
+     */
+    public void enforceUniqueness() {
+        jdbcTemplate.execute("LOCK TABLE locations IN SHARE ROW EXCLUSIVE MODE");
+        publishIfDeleted(jdbcTemplate.update(MERGE_DUPLICATES, Integer.MAX_VALUE));
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS locations_coordinates_uq ON locations "
+                + COORDINATES_KEY);
+        jdbcTemplate.execute("DROP INDEX IF EXISTS locations_coordinates_idx");
+    }
+
+    private int publishIfDeleted(int deleted) {
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new LocationsDeletedEvent());
+        }
+        return deleted;
+    }
+}
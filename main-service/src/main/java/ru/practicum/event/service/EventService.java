@@ -9,7 +9,7 @@ import java.util.List;
 
 public interface EventService {
 
-    List<EventShortDto> getEvents(Long userId, int from, int size);
+    EventPage<EventShortDto> getEvents(Long userId, int from, int size, String cursor);
 
     EventFullDto createEvent(NewEventDto newEventDto, Long userId);
 
@@ -21,15 +21,23 @@ public interface EventService {
 
     EventRequestStatusUpdateResult updateRequestStatus(Long userId, Long eventId, EventRequestStatusUpdateRequest dto);
 
-    List<EventFullDto> getEventsAdmin(List<Long> userIds, List<String> states, List<Long> categories,
-                                      LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size);
+    EventPage<EventFullDto> getEventsAdmin(List<Long> userIds, List<String> states, List<Long> categories,
+                                           LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size,
+                                           String cursor);
 
     EventFullDto updateEventFromAdmin(Long eventId, UpdateEventAdminRequest updateEventAdminRequest);
 
-    List<EventShortDto> getEventsPublic(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
-                                        LocalDateTime rangeEnd, Boolean onlyAvailable, String sort,
-                                        int from, int size, HttpServletRequest httpServletRequest);
+    EventPage<EventShortDto> getEventsPublic(String text, List<Long> categories, Boolean paid,
+                                             LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
+                                             Double lat, Double lon, Double radius,
+                                             String sort, int from, int size, String cursor,
+                                             HttpServletRequest httpServletRequest);
 
     EventFullDto getEventByIdPublic(Long eventId, HttpServletRequest httpServletRequest);
 
+    /**
+     * Опубликованное событие без учёта просмотра: просмотр уже учтён при проверке ETag.
+     */
+    EventFullDto getViewedEventByIdPublic(Long eventId);
+
 }
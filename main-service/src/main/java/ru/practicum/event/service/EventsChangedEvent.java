@@ -0,0 +1,9 @@
+package ru.practicum.event.service;
+
+import java.util.Collection;
+
+/**
+ * Публикуется, когда у событий изменились поля, входящие в EventShortDto.
+ */
+public record EventsChangedEvent(Collection<Long> eventIds) {
+}
@@ -0,0 +1,61 @@
+package ru.practicum.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.event.repository.LocationJdbcRepository;
+
+/**
+ * Периодически сливает дубликаты мест, оставшиеся от сохранения места при каждом изменении события,
+ * и удаляет места, на которые больше не ссылаются события.
+ * Когда дубликатов не остаётся, создаёт уникальный индекс по координатам, после чего новые дубликаты невозможны.
+ * Работа идёт пачками по batch-size строк, каждая пачка — отдельная транзакция.
+ */
+@Slf4j
+@Component
+public class LocationCompactor {
+    private final LocationJdbcRepository locationJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public LocationCompactor(LocationJdbcRepository locationJdbcRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${ewm.locations.compaction.batch-size:1000}") int batchSize) {
+        this.locationJdbcRepository = locationJdbcRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${ewm.locations.compaction.initial-delay:PT1M}",
+            fixedDelayString = "${ewm.locations.compaction.interval:PT1H}")
+    public void compact() {
+        try {
+            if (!locationJdbcRepository.hasUniqueIndex()) {
+                int merged = 0;
+                int batch;
+                do {
+                    batch = locationJdbcRepository.mergeDuplicates(batchSize);
+                    merged += batch;
+                } while (batch == batchSize);
+                transactionTemplate.executeWithoutResult(status -> locationJdbcRepository.enforceUniqueness());
+                log.info("Слито дубликатов мест: {}, создан уникальный индекс по координатам", merged);
+            }
+            int deleted = 0;
+            int batch;
+            do {
+                batch = locationJdbcRepository.deleteOrphans(batchSize);
+                deleted += batch;
+            } while (batch == batchSize);
+            if (deleted > 0) {
+                log.info("Удалено мест без событий: {}", deleted);
+            }
+        } catch (DataAccessException e) {
+            // место могло быть привязано к событию параллельной транзакцией; пачка повторится при следующем запуске
+            log.warn("Сжатие таблицы мест прервано: {}", e.toString());
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.event.service;
+
+import ru.practicum.event.dto.LocationDto;
+import ru.practicum.event.model.Location;
+
+public interface LocationService {
+
+    /**
+     * Возвращает существующее место с такими же (с точностью около метра) координатами или добавляет новое.
+     * Вызывается в транзакции, в которой место будет привязано к событию.
+     */
+    Location getOrCreate(LocationDto locationDto);
+}
@@ -0,0 +1,7 @@
+package ru.practicum.event.service;
+
+/**
+ * Публикуется, когда строки locations удалены в обход Hibernate.
+ */
+public record LocationsDeletedEvent() {
+}
@@ -0,0 +1,76 @@
+package ru.practicum.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.event.repository.EventViewsJdbcRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Периодически копирует количество просмотров событий из stat-server в колонку events.materialized_views,
+ * по которой выполняется сортировка sort=VIEWS.
+ * Обычно обновляются только события, которые просматривали с прошлого запуска (с запасом lookback на hit,
+ * доставленные с опозданием). Раз в full-interval просмотры сверяются по всем событиям, а события без просмотров
+ * в stat-server обнуляются.
+ */
+@Slf4j
+@Component
+public class MaterializedViewsUpdater {
+    private final ViewStatsService viewStatsService;
+    private final EventViewsJdbcRepository eventViewsJdbcRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration lookback;
+    private final Duration fullInterval;
+
+    private LocalDateTime lastSync;
+    private LocalDateTime lastFullSync;
+
+    public MaterializedViewsUpdater(ViewStatsService viewStatsService,
+                                    EventViewsJdbcRepository eventViewsJdbcRepository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${ewm.views.sync.lookback:PT5M}") Duration lookback,
+                                    @Value("${ewm.views.sync.full-interval:PT1H}") Duration fullInterval) {
+        this.viewStatsService = viewStatsService;
+        this.eventViewsJdbcRepository = eventViewsJdbcRepository;
+        this.eventPublisher = eventPublisher;
+        this.lookback = lookback;
+        this.fullInterval = fullInterval;
+    }
+
+    @Scheduled(initialDelayString = "${ewm.views.sync.initial-delay:PT10S}",
+            fixedDelayString = "${ewm.views.sync.interval:PT1M}")
+    public void updateViews() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        boolean full = lastFullSync == null || !startedAt.isBefore(lastFullSync.plus(fullInterval));
+        Map<Long, Long> views;
+        try {
+            views = full ? viewStatsService.getAllViews() : viewStatsService.getViewsOfViewedSince(lastSync.minus(lookback));
+        } catch (RuntimeException e) {
+            log.warn("Просмотры не получены из stat-server, обновление пропущено: {}", e.toString());
+            return;
+        }
+        try {
+            List<Long> changed = new ArrayList<>(eventViewsJdbcRepository.updateViews(views));
+            if (full) {
+                changed.addAll(eventViewsJdbcRepository.resetViewsExcept(views.keySet()));
+                lastFullSync = startedAt;
+            }
+            lastSync = startedAt;
+            log.debug("Обновлены просмотры {} из {} событий{}", changed.size(), views.size(),
+                    full ? " (полная сверка)" : "");
+            if (!changed.isEmpty()) {
+                eventPublisher.publishEvent(new EventsChangedEvent(changed));
+            }
+        } catch (DataAccessException e) {
+            log.error("Ошибка при обновлении просмотров событий", e);
+        }
+    }
+}
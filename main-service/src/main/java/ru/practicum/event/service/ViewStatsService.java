@@ -0,0 +1,32 @@
+package ru.practicum.event.service;
+
+import ru.practicum.event.model.Event;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public interface ViewStatsService {
+
+    void registerView(String uri, String ip);
+
+    /**
+     * Заполняет просмотры опубликованных событий; если stat-server недоступен — значениями materialized_views.
+     */
+    void setViews(List<Event> events);
+
+    /**
+     * Количество просмотров опубликованных событий по их id.
+     */
+    Map<Long, Long> getViews(List<Long> eventIds);
+
+    /**
+     * Количество просмотров всех событий, у которых есть хотя бы один просмотр.
+     */
+    Map<Long, Long> getAllViews();
+
+    /**
+     * Количество просмотров событий, которые просматривали начиная с since; за всё время, а не только после since.
+     */
+    Map<Long, Long> getViewsOfViewedSince(LocalDateTime since);
+}
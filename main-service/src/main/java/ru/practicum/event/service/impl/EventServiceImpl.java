@@ -3,69 +3,94 @@ package ru.practicum.event.service.impl;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.EndpointHitDto;
-import ru.practicum.StatClient;
-import ru.practicum.ViewStats;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.category.model.Category;
 import ru.practicum.category.repository.CategoryRepository;
 import ru.practicum.event.dto.*;
 import ru.practicum.event.mapper.EventMapper;
-import ru.practicum.event.mapper.LocationMapper;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.Location;
 import ru.practicum.event.model.enums.EventState;
 import ru.practicum.event.repository.EventRepository;
-import ru.practicum.event.repository.LocationRepository;
 import ru.practicum.event.service.EventService;
+import ru.practicum.event.service.EventsChangedEvent;
+import ru.practicum.event.service.LocationService;
+import ru.practicum.event.service.ViewStatsService;
 import ru.practicum.event.specification.EventSpecifications;
 import ru.practicum.exception.*;
 import ru.practicum.request.dto.ParticipationRequestDto;
 import ru.practicum.request.mapper.RequestMapper;
 import ru.practicum.request.model.Request;
 import ru.practicum.request.model.enums.RequestState;
+import ru.practicum.request.repository.RequestJdbcRepository;
 import ru.practicum.request.repository.RequestRepository;
 import ru.practicum.user.model.User;
 import ru.practicum.user.repository.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @Transactional
 @RequiredArgsConstructor
 public class EventServiceImpl implements EventService {
+    private static final Sort BY_EVENT_DATE = Sort.by("eventDate", "id");
+    private static final Sort BY_VIEWS = Sort.by(Sort.Direction.DESC, "materializedViews", "id");
+
     private final EventRepository eventRepository;
     private final EventMapper eventMapper;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-    private final LocationRepository locationRepository;
-    private final LocationMapper locationMapper;
-    private final StatClient statClient;
+    private final LocationService locationService;
+    private final ViewStatsService viewStatsService;
     private final RequestRepository requestRepository;
+    private final RequestJdbcRepository requestJdbcRepository;
     private final RequestMapper requestMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private final AsyncTaskExecutor viewsExecutor;
+
+    @Value("${ewm.search.full-text:false}")
+    private boolean fullTextSearch;
+
+    @Value("${ewm.views.fetch.chunk-size:100}")
+    private int viewsChunkSize;
+
+    @Value("${ewm.views.fetch.timeout:2s}")
+    private Duration viewsTimeout;
 
     @Override
-    @Transactional(readOnly = true)
-    public List<EventShortDto> getEvents(Long userId, int from, int size) {
-        checkUser(userId);
-        Pageable pageable = PageRequest.of(from / size, size);
-        Page<Event> events = eventRepository.findAllByInitiatorId(userId, pageable);
-        List<Event> eventList = events.getContent();
-        setViews(eventList);
-        return eventList.stream()
-                .map(eventMapper::toShortDto)
-                .toList();
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EventPage<EventShortDto> getEvents(Long userId, int from, int size, String cursor) {
+        List<EventShortProjection> events = read(() -> {
+            checkUser(userId);
+            Specification<Event> spec = EventSpecifications.initiators(List.of(userId));
+            return eventRepository.findEventShorts(seek(spec, BY_EVENT_DATE, cursor), BY_EVENT_DATE,
+                    offset(from, cursor), size);
+        });
+        return toShortPage(events, BY_EVENT_DATE, size);
     }
 
     @Override
@@ -73,7 +98,7 @@ public class EventServiceImpl implements EventService {
         Event event = eventMapper.toEventFromNewEvent(newEventDto);
         User initiator = checkUser(userId);
         Category category = checkCategory(newEventDto.getCategory());
-        Location location = locationRepository.save(locationMapper.toLocation(newEventDto.getLocation()));
+        Location location = locationService.getOrCreate(newEventDto.getLocation());
         event.setInitiator(initiator);
         event.setLocation(location);
         event.setCategory(category);
@@ -86,14 +111,17 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto getEventById(Long userId, Long eventId) {
-        User user = checkUser(userId);
-        Event event = checkEvent(eventId);
-        if (!event.getInitiator().getId().equals(user.getId())) {
-            throw new AccessDeniedException("Ошибка доступа: пользователь не является инициатором события");
-        }
-        setViews(List.of(event));
+        Event event = read(() -> {
+            User user = checkUser(userId);
+            Event found = checkEvent(eventId);
+            if (!found.getInitiator().getId().equals(user.getId())) {
+                throw new AccessDeniedException("Ошибка доступа: пользователь не является инициатором события");
+            }
+            return found;
+        });
+        viewStatsService.setViews(List.of(event));
 
         return eventMapper.toFullDto(event);
     }
@@ -125,7 +153,7 @@ public class EventServiceImpl implements EventService {
             event.setDescription(userRequest.getDescription());
         }
         if (userRequest.getLocation() != null) {
-            Location location = locationRepository.save(locationMapper.toLocation(userRequest.getLocation()));
+            Location location = locationService.getOrCreate(userRequest.getLocation());
             event.setLocation(location);
         }
         if (userRequest.getPaid() != null) {
@@ -149,6 +177,7 @@ public class EventServiceImpl implements EventService {
         }
         log.info("Успешное обновление события пользователем");
         Event saveEvent = eventRepository.save(event);
+        eventPublisher.publishEvent(new EventsChangedEvent(List.of(eventId)));
         return eventMapper.toFullDto(saveEvent);
     }
 
@@ -178,36 +207,39 @@ public class EventServiceImpl implements EventService {
         if (!event.getRequestModeration() || event.getParticipantLimit() == 0) {
             throw new ConflictException("Подтверждение заявок не требуется для данного события");
         }
-        List<Request> requests = requestRepository.findAllById(dto.getRequestIds());
+        if (dto.getStatus() != RequestState.CONFIRMED && dto.getStatus() != RequestState.REJECTED) {
+            throw new ValidationException("Статус заявок может быть только CONFIRMED или REJECTED");
+        }
 
-        long available = event.getParticipantLimit() - event.getConfirmedRequests();
         List<ParticipationRequestDto> confirmed = new ArrayList<>();
         List<ParticipationRequestDto> rejected = new ArrayList<>();
-
-        for (Request request : requests) {
-            if (!request.getStatus().equals(RequestState.PENDING)) {
-                throw new ConflictException("Можно обрабатывать только заявки в статусе PENDING");
-            }
-
-            if (dto.getStatus() == RequestState.CONFIRMED) {
-                if (available <= 0) {
-                    throw new ConflictException("Лимит участников достигнут. Подтверждение невозможно.");
-                }
-
-                request.setStatus(RequestState.CONFIRMED);
-                available--;
-                event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-                confirmed.add(requestMapper.toRequestDto(request));
-            } else if (dto.getStatus() == RequestState.REJECTED) {
-                request.setStatus(RequestState.REJECTED);
-                rejected.add(requestMapper.toRequestDto(request));
+        if (dto.getRequestIds().isEmpty()) {
+            return EventRequestStatusUpdateResult.builder()
+                    .confirmedRequests(confirmed)
+                    .rejectedRequests(rejected)
+                    .build();
+        }
+
+        List<ParticipationRequestDto> updated = requestJdbcRepository.updateStatuses(eventId, dto.getRequestIds(),
+                dto.getStatus());
+        if (updated.size() < dto.getRequestIds().size()) {
+            throw new ConflictException("Можно обрабатывать только заявки в статусе PENDING");
+        }
+        for (ParticipationRequestDto request : updated) {
+            if (request.getStatus() == RequestState.CONFIRMED) {
+                confirmed.add(request);
+            } else {
+                rejected.add(request);
             }
         }
+        if (dto.getStatus() == RequestState.CONFIRMED && confirmed.isEmpty()) {
+            throw new ConflictException("Лимит участников достигнут. Подтверждение невозможно.");
+        }
+        if (!confirmed.isEmpty()) {
+            eventPublisher.publishEvent(new EventsChangedEvent(List.of(eventId)));
+        }
         log.info("успешное обновления статуса события");
 
-        requestRepository.saveAll(requests);
-        eventRepository.save(event);
-
         return EventRequestStatusUpdateResult.builder()
                 .confirmedRequests(confirmed)
                 .rejectedRequests(rejected)
@@ -215,9 +247,10 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<EventFullDto> getEventsAdmin(List<Long> userIds, List<String> states, List<Long> categories,
-                                             LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EventPage<EventFullDto> getEventsAdmin(List<Long> userIds, List<String> states, List<Long> categories,
+                                                  LocalDateTime rangeStart, LocalDateTime rangeEnd, int from, int size,
+                                                  String cursor) {
         if (rangeStart != null && rangeEnd != null && rangeStart.isAfter(rangeEnd)) {
             throw new ValidationException("rangeStart не может быть позже rangeEnd");
         }
@@ -244,14 +277,24 @@ public class EventServiceImpl implements EventService {
             spec = spec.and(EventSpecifications.rangeEnd(rangeEnd));
         }
 
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<Event> events = eventRepository.findAll(spec, pageable).getContent();
+        Specification<Event> filter = seek(spec, BY_EVENT_DATE, cursor);
+        List<Event> events = read(() -> eventRepository.findEvents(filter, BY_EVENT_DATE, offset(from, cursor), size));
 
-        setViews(events);
+        Map<Long, Long> storedViews = new HashMap<>();
+        for (Event event : events) {
+            if (event.getPublishedOn() != null) {
+                storedViews.put(event.getId(), event.getMaterializedViews());
+            }
+        }
+        Map<Long, Long> views = fetchViews(storedViews);
+        events.forEach(event -> event.setViews(views.get(event.getId())));
 
-        return events.stream()
+        String nextCursor = isFullPage(events, size)
+                ? EventCursor.afterByEventDate(events.getLast().getEventDate(), events.getLast().getId()).encode()
+                : null;
+        return new EventPage<>(events.stream()
                 .map(eventMapper::toFullDto)
-                .toList();
+                .toList(), nextCursor);
     }
 
     @Override
@@ -289,7 +332,7 @@ public class EventServiceImpl implements EventService {
             event.setCategory(category);
         }
         if (updateRequest.getLocation() != null) {
-            Location location = locationRepository.save(locationMapper.toLocation(updateRequest.getLocation()));
+            Location location = locationService.getOrCreate(updateRequest.getLocation());
             event.setLocation(location);
         }
 
@@ -305,23 +348,19 @@ public class EventServiceImpl implements EventService {
         }
         log.info("Успешное обновление от Admin");
         Event saved = eventRepository.save(event);
+        eventPublisher.publishEvent(new EventsChangedEvent(List.of(eventId)));
         return eventMapper.toFullDto(saved);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public List<EventShortDto> getEventsPublic(String text, List<Long> categories, Boolean paid,
-                                               LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
-                                               String sort, int from, int size, HttpServletRequest httpServletRequest) {
-
-        String uri = "/events";
-        String ip = httpServletRequest.getRemoteAddr();
-        statClient.createHit(EndpointHitDto.builder()
-                .app("main-service")
-                .uri(uri)
-                .ip(ip)
-                .timestamp(LocalDateTime.now())
-                .build());
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EventPage<EventShortDto> getEventsPublic(String text, List<Long> categories, Boolean paid,
+                                                    LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                    Boolean onlyAvailable, Double lat, Double lon, Double radius,
+                                                    String sort, int from, int size,
+                                                    String cursor, HttpServletRequest httpServletRequest) {
+
+        viewStatsService.registerView("/events", httpServletRequest.getRemoteAddr());
 
         if (rangeStart == null) {
             rangeStart = LocalDateTime.now();
@@ -330,118 +369,163 @@ public class EventServiceImpl implements EventService {
         if (rangeEnd != null && rangeStart.isAfter(rangeEnd)) {
             throw new ValidationException("rangeStart не может быть позже rangeEnd");
         }
+        if (sort != null && !sort.equalsIgnoreCase("VIEWS") && !sort.equalsIgnoreCase("EVENT_DATE")
+                && !sort.equalsIgnoreCase("DISTANCE")) {
+            throw new ValidationException("sort должен быть VIEWS, EVENT_DATE или DISTANCE");
+        }
+        boolean byDistance = sort != null && sort.equalsIgnoreCase("DISTANCE");
+        checkGeoParams(lat, lon, radius, byDistance, cursor);
 
         Specification<Event> spec = Specification.where(EventSpecifications.isPublished())
-                .and(EventSpecifications.textInAnnotationOrDescription(text))
+                .and(fullTextSearch
+                        ? EventSpecifications.textMatches(text)
+                        : EventSpecifications.textInAnnotationOrDescription(text))
                 .and(EventSpecifications.inCategories(categories))
                 .and(EventSpecifications.isPaid(paid))
                 .and(EventSpecifications.rangeStart(rangeStart))
                 .and(EventSpecifications.rangeEnd(rangeEnd))
-                .and(onlyAvailable != null && onlyAvailable ? EventSpecifications.onlyAvailable() : null);
-
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<Event> events = new ArrayList<>(eventRepository.findAll(spec, pageable).getContent());
-
-        try {
-            Thread.sleep(1500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
-        setViews(events);
-
-        if (sort != null) {
-            switch (sort.toUpperCase()) {
-                case "VIEWS" ->
-                        events.sort(Comparator.comparing(Event::getViews, Comparator.nullsFirst(Long::compareTo)).reversed());
-                case "EVENT_DATE" -> events.sort(Comparator.comparing(Event::getEventDate));
-                default -> throw new ValidationException("sort должен быть либо VIEWS, либо EVENT_DATE");
-            }
-        }
-        return events.stream()
-                .map(eventMapper::toShortDto)
-                .toList();
+                .and(onlyAvailable != null && onlyAvailable ? EventSpecifications.onlyAvailable() : null)
+                .and(radius != null ? EventSpecifications.withinRadius(lat, lon, radius) : null);
+
+        Sort order = BY_EVENT_DATE;
+        if (sort != null && sort.equalsIgnoreCase("VIEWS")) {
+            order = BY_VIEWS;
+        } else if (lat != null && (byDistance || sort == null && cursor == null)) {
+            spec = spec.and(EventSpecifications.orderByDistance(lat, lon));
+            order = Sort.unsorted();
+        } else if (fullTextSearch && sort == null && cursor == null && text != null && !text.isBlank()) {
+            spec = spec.and(EventSpecifications.orderByRelevance(text));
+            order = Sort.unsorted();
+        }
+
+        Specification<Event> filter = seek(spec, order, cursor);
+        Sort filterOrder = order;
+        List<EventShortProjection> events = read(() -> eventRepository.findEventShorts(filter, filterOrder,
+                offset(from, cursor), size));
+        return toShortPage(events, order, size);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto getEventByIdPublic(Long eventId, HttpServletRequest httpServletRequest) {
-        Event event = checkEvent(eventId);
+        Event event = read(() -> checkPublishedEvent(eventId));
 
-        if (event.getState() != EventState.PUBLISHED) {
-            throw new NotFoundException("Событие не опубликовано");
-        }
+        viewStatsService.registerView("/events/" + eventId, httpServletRequest.getRemoteAddr());
 
-        String uri = "/events/" + eventId;
-        String ip = httpServletRequest.getRemoteAddr();
-        statClient.createHit(EndpointHitDto.builder()
-                .app("main-service")
-                .uri(uri)
-                .ip(ip)
-                .timestamp(LocalDateTime.now())
-                .build());
+        viewStatsService.setViews(List.of(event));
+        return eventMapper.toFullDto(event);
+    }
 
-        try {
-            Thread.sleep(1500);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public EventFullDto getViewedEventByIdPublic(Long eventId) {
+        Event event = read(() -> checkPublishedEvent(eventId));
 
-        setViews(event);
+        viewStatsService.setViews(List.of(event));
         return eventMapper.toFullDto(event);
     }
 
-    private void setViews(Event event) {
-        List<ViewStats> stats = statClient.getStats(
-                event.getPublishedOn(),
-                LocalDateTime.now().plusMinutes(1),
-                List.of("/events/" + event.getId()),
-                true
-        );
-        long views = stats.isEmpty() ? 0 : stats.getFirst().getHits();
-        event.setViews(views);
+    private void checkGeoParams(Double lat, Double lon, Double radius, boolean byDistance, String cursor) {
+        if ((lat == null) != (lon == null)) {
+            throw new ValidationException("lat и lon задаются вместе");
+        }
+        if (lat == null && (radius != null || byDistance)) {
+            throw new ValidationException("Для поиска и сортировки по расстоянию нужны lat и lon");
+        }
+        if (lat != null && (lat < -90 || lat > 90 || lon < -180 || lon > 180)) {
+            throw new ValidationException("lat должна быть в диапазоне [-90, 90], lon — в диапазоне [-180, 180]");
+        }
+        if (radius != null && radius <= 0) {
+            throw new ValidationException("radius должен быть положительным");
+        }
+        if (byDistance && cursor != null) {
+            throw new ValidationException("cursor не поддерживается при сортировке по расстоянию");
+        }
     }
 
-    private void setViews(List<Event> events) {
-        if (events.isEmpty()) {
-            return;
+    private Specification<Event> seek(Specification<Event> spec, Sort sort, String cursor) {
+        if (cursor == null) {
+            return spec;
         }
-
-        List<String> uris = new ArrayList<>();
-        LocalDateTime start = null;
-        for (Event event : events) {
-            if (event.getPublishedOn() != null) {
-                uris.add("/events/" + event.getId());
-                if (start == null || event.getPublishedOn().isBefore(start)) {
-                    start = event.getPublishedOn();
-                }
-            }
+        EventCursor after = EventCursor.decode(cursor);
+        if (after.byViews() != (sort == BY_VIEWS)) {
+            throw new ValidationException("cursor не соответствует порядку сортировки");
         }
+        return spec.and(EventSpecifications.after(after));
+    }
 
-        if (start == null) {
-            return;
-        }
+    private int offset(int from, String cursor) {
+        return cursor == null ? from : 0;
+    }
 
-        List<ViewStats> stats = statClient.getStats(
-                start,
-                LocalDateTime.now().plusMinutes(1),
-                uris,
-                true
-        );
+    private boolean isFullPage(List<?> events, int size) {
+        return !events.isEmpty() && events.size() >= size;
+    }
 
-        if (stats.isEmpty() || stats == null) {
-            return;
+    private EventPage<EventShortDto> toShortPage(List<EventShortProjection> events, Sort sort, int size) {
+        Map<Long, Long> storedViews = new HashMap<>();
+        for (EventShortProjection event : events) {
+            if (event.publishedOn() != null) {
+                storedViews.put(event.id(), event.materializedViews());
+            }
         }
+        Map<Long, Long> views = fetchViews(storedViews);
+        List<EventShortDto> dtos = events.stream()
+                .map(event -> eventMapper.toShortDto(event, views.get(event.id())))
+                .toList();
+        if (!isFullPage(events, size) || sort.isUnsorted()) {
+            return new EventPage<>(dtos, null);
+        }
+        EventShortProjection last = events.getLast();
+        EventCursor next = sort == BY_VIEWS
+                ? EventCursor.afterByViews(last.materializedViews(), last.id())
+                : EventCursor.afterByEventDate(last.eventDate(), last.id());
+        return new EventPage<>(dtos, next.encode());
+    }
 
-        Map<Long, Long> viewsById = stats.stream()
-                .collect(Collectors.toMap(
-                        viewStats -> Long.parseLong(viewStats.getUri().substring(viewStats.getUri().lastIndexOf("/") + 1)),
-                        ViewStats::getHits
-                ));
-
-        for (Event event : events) {
-            event.setViews(viewsById.getOrDefault(event.getId(), 0L));
+    /**
+     * Просмотры опубликованных событий страницы. Id делятся на пачки, которые запрашиваются из stat-server параллельно.
+     * Для пачки, не уложившейся в таймаут или завершившейся ошибкой, остаются значения storedViews
+     * (materialized_views, которые обновляет MaterializedViewsUpdater).
+     */
+    private Map<Long, Long> fetchViews(Map<Long, Long> storedViews) {
+        List<Long> ids = List.copyOf(storedViews.keySet());
+        List<List<Long>> chunks = new ArrayList<>();
+        List<Future<Map<Long, Long>>> futures = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += viewsChunkSize) {
+            List<Long> chunk = ids.subList(i, Math.min(i + viewsChunkSize, ids.size()));
+            chunks.add(chunk);
+            futures.add(viewsExecutor.submit(() -> viewStatsService.getViews(chunk)));
+        }
+        Map<Long, Long> views = new HashMap<>(storedViews);
+        long deadline = System.nanoTime() + viewsTimeout.toNanos();
+        for (int i = 0; i < futures.size(); i++) {
+            Future<Map<Long, Long>> future = futures.get(i);
+            try {
+                views.putAll(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException e) {
+                // незавершённый запрос прерывается, чтобы запросы по таймауту не копились на executor
+                future.cancel(true);
+                log.warn("Просмотры {} событий не получены из stat-server, используются сохранённые: {}",
+                        chunks.get(i).size(), e.toString());
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                log.warn("Получение просмотров прервано, используются сохранённые");
+                break;
+            }
         }
+        return views;
+    }
+
+    /**
+     * Читает из базы в отдельной транзакции. Методы, которые затем запрашивают просмотры из stat-server,
+     * выполняются без транзакции, чтобы соединение с базой не удерживалось на время этого запроса.
+     */
+    private <T> T read(Supplier<T> query) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> query.get());
     }
 
     private User checkUser(Long userId) {
@@ -454,6 +538,14 @@ public class EventServiceImpl implements EventService {
                 new NotFoundException("Category с id " + categoryId + " не найден"));
     }
 
+    private Event checkPublishedEvent(Long eventId) {
+        Event event = checkEvent(eventId);
+        if (event.getState() != EventState.PUBLISHED) {
+            throw new NotFoundException("Событие не опубликовано");
+        }
+        return event;
+    }
+
     private Event checkEvent(Long eventId) {
         return eventRepository.findById(eventId).orElseThrow(() ->
                 new NotFoundException("Event с id " + eventId + " не найден"));
@@ -0,0 +1,83 @@
+package ru.practicum.event.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.event.dto.LocationDto;
+import ru.practicum.event.model.Location;
+import ru.practicum.event.repository.LocationJdbcRepository;
+import ru.practicum.event.repository.LocationRepository;
+import ru.practicum.event.service.LocationService;
+import ru.practicum.event.service.LocationsDeletedEvent;
+
+import java.util.Optional;
+
+/**
+ * Одинаковые места хранятся одной строкой locations.
+ * Локальный кэш по округлённым координатам хранит id строки; перед использованием строка блокируется в базе,
+ * поэтому устаревшая запись кэша (место удалено LocationCompactor) приводит только к повторному поиску.
+ * После фиксации удаления мест сбрасываются этот кэш и регион locations кэша второго уровня.
+ */
+@Service
+public class LocationServiceImpl implements LocationService {
+    private final LocationRepository locationRepository;
+    private final LocationJdbcRepository locationJdbcRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Cache<Coordinates, Long> locationIds;
+
+    public LocationServiceImpl(LocationRepository locationRepository,
+                               LocationJdbcRepository locationJdbcRepository,
+                               EntityManagerFactory entityManagerFactory,
+                               ObjectProvider<MeterRegistry> meterRegistry,
+                               @Value("${ewm.locations.cache.maximum-size:10000}") long maximumSize) {
+        this.locationRepository = locationRepository;
+        this.locationJdbcRepository = locationJdbcRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.locationIds = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, locationIds, "locationIds"));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Location getOrCreate(LocationDto locationDto) {
+        float lat = locationDto.getLat();
+        float lon = locationDto.getLon();
+        Coordinates coordinates = Coordinates.of(lat, lon);
+        Long cachedId = locationIds.getIfPresent(coordinates);
+        Optional<Long> id = cachedId == null ? Optional.empty() : locationJdbcRepository.lockById(cachedId);
+        if (id.isEmpty()) {
+            id = locationJdbcRepository.lockByCoordinates(lat, lon)
+                    .or(() -> locationJdbcRepository.insert(lat, lon))
+                    // место добавила параллельная транзакция и уже зафиксировала
+                    .or(() -> locationJdbcRepository.lockByCoordinates(lat, lon));
+        }
+        Long locationId = id.orElseThrow(() -> new IllegalStateException(
+                "Не удалось сохранить место с координатами " + lat + ", " + lon));
+        locationIds.put(coordinates, locationId);
+        return locationRepository.getReferenceById(locationId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocationsDeleted(LocationsDeletedEvent event) {
+        entityManagerFactory.getCache().evict(Location.class);
+        locationIds.invalidateAll();
+    }
+
+    // то же округление, что и в выражениях индекса: round() в PostgreSQL для double precision — до ближайшего чётного
+    private record Coordinates(double lat, double lon) {
+        static Coordinates of(float lat, float lon) {
+            return new Coordinates(Math.rint(lat * 100000d), Math.rint(lon * 100000d));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package ru.practicum.event.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Service;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.StatClient;
+import ru.practicum.event.model.Event;
+import ru.practicum.event.service.ViewStatsService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Количество уникальных просмотров событий с локальным кэшем по id события.
+ * Записи обновляются в фоне после refresh-after-write, пока не истечёт expire-after-write.
+ * Обновление выполняется на applicationTaskExecutor, а не в ForkJoinPool.commonPool, так как загрузка блокируется на HTTP.
+ * Просмотры, зарегистрированные после загрузки записи, добавляются к ней по числу новых ip, а не сбрасывают кэш.
+ * Загрузка сначала отправляет накопленные hit по этим событиям в stat-server, поэтому их ip переходят в учтённые.
+ * Локальные ip события живут столько же, сколько его запись в views: при вытеснении одной удаляется и другая.
+ */
+@Slf4j
+@Service
+public class ViewStatsServiceImpl implements ViewStatsService {
+    private static final String APP = "main-service";
+    private static final Pattern EVENT_URI_PATTERN = Pattern.compile("/events/(\\d+)");
+    // hit по событию появляются только после публикации, поэтому нижняя граница может быть любой ранней датой
+    private static final LocalDateTime VIEWS_START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final StatClient statClient;
+    private final LoadingCache<Long, Long> views;
+    private final Cache<Long, LocalViews> localViews;
+
+    public ViewStatsServiceImpl(StatClient statClient,
+                                ObjectProvider<MeterRegistry> meterRegistry,
+                                @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                                Executor refreshExecutor,
+                                @Value("${ewm.views.cache.maximum-size:10000}") long maximumSize,
+                                @Value("${ewm.views.cache.expire-after-write:5m}") Duration expireAfterWrite,
+                                @Value("${ewm.views.cache.refresh-after-write:30s}") Duration refreshAfterWrite) {
+        this.statClient = statClient;
+        this.views = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .refreshAfterWrite(refreshAfterWrite)
+                .executor(refreshExecutor)
+                .recordStats()
+                // новая загрузка учтёт все ip заново, поэтому локальные ip больше не нужны
+                .<Long, Long>removalListener((eventId, count, cause) -> {
+                    if (cause.wasEvicted() && eventId != null) {
+                        this.localViews.invalidate(eventId);
+                    }
+                })
+                .build(new ViewsLoader());
+        this.localViews = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                // без учтённых и неучтённых ip значение в views неверно, поэтому оно загружается заново
+                .<Long, LocalViews>removalListener((eventId, local, cause) -> {
+                    if (cause.wasEvicted() && eventId != null) {
+                        views.invalidate(eventId);
+                    }
+                })
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, views, "eventViews"));
+    }
+
+    @Override
+    public void registerView(String uri, String ip) {
+        statClient.createHit(EndpointHitDto.builder()
+                .app(APP)
+                .uri(uri)
+                .ip(ip)
+                .timestamp(LocalDateTime.now())
+                .build());
+        // следующий запрос должен увидеть собственный просмотр
+        Matcher matcher = EVENT_URI_PATTERN.matcher(uri);
+        if (matcher.matches()) {
+            localViews.get(Long.parseLong(matcher.group(1)), id -> new LocalViews()).register(ip);
+        }
+    }
+
+    @Override
+    public void setViews(List<Event> events) {
+        Map<Long, Long> viewsById;
+        try {
+            viewsById = getViews(events.stream()
+                    .filter(event -> event.getPublishedOn() != null)
+                    .map(Event::getId)
+                    .toList());
+        } catch (RuntimeException e) {
+            log.warn("Просмотры не получены из stat-server, используются сохранённые: {}", e.toString());
+            viewsById = Map.of();
+        }
+        for (Event event : events) {
+            if (event.getPublishedOn() != null) {
+                event.setViews(viewsById.getOrDefault(event.getId(), event.getMaterializedViews()));
+            }
+        }
+    }
+
+    @Override
+    public Map<Long, Long> getViews(List<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Long> result = new HashMap<>(views.getAll(eventIds));
+        // читается после getAll: загрузка, выполненная в getAll, уже перенесла учтённые ip
+        for (Long eventId : eventIds) {
+            LocalViews local = localViews.getIfPresent(eventId);
+            if (local != null) {
+                result.merge(eventId, (long) local.pending(), Long::sum);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Long, Long> getAllViews() {
+        return statClient.getEventStats(VIEWS_START, LocalDateTime.now().plusMinutes(1), List.of(), true);
+    }
+
+    @Override
+    public Map<Long, Long> getViewsOfViewedSince(LocalDateTime since) {
+        LocalDateTime end = LocalDateTime.now().plusMinutes(1);
+        // уникальные ip нельзя сложить по окнам: окно только выбирает события, а количество считается за всё время
+        Set<Long> viewed = statClient.getEventStats(since, end, List.of(), false).keySet();
+        if (viewed.isEmpty()) {
+            return Map.of();
+        }
+        return statClient.getEventStats(VIEWS_START, end, viewed, true);
+    }
+
+    private class ViewsLoader implements CacheLoader<Long, Long> {
+        @Override
+        public Long load(Long eventId) {
+            return loadAll(Set.of(eventId)).get(eventId);
+        }
+
+        @Override
+        public Map<Long, Long> loadAll(Set<? extends Long> eventIds) {
+            // StatClient перед запросом отправляет накопленные hit по этим событиям (ждёт не дольше
+            // read-flush-timeout), и ответ учтёт их сам
+            Map<Long, LocalViews> snapshots = new HashMap<>();
+            for (Long eventId : eventIds) {
+                LocalViews local = localViews.getIfPresent(eventId);
+                if (local != null) {
+                    local.snapshot();
+                    snapshots.put(eventId, local);
+                }
+            }
+            Map<Long, Long> hits;
+            try {
+                hits = statClient.getEventStats(VIEWS_START, LocalDateTime.now().plusMinutes(1), eventIds, true);
+            } catch (RuntimeException e) {
+                snapshots.values().forEach(LocalViews::restore);
+                throw e;
+            }
+            snapshots.values().forEach(LocalViews::markCounted);
+            Map<Long, Long> result = new HashMap<>();
+            eventIds.forEach(id -> result.put(id, hits.getOrDefault(id, 0L)));
+            log.debug("Загружены просмотры для {} событий", eventIds.size());
+            return result;
+        }
+    }
+
+    /**
+     * ip, просмотревшие событие через этот экземпляр: ещё не учтённые в кэше views, отправленные на учёт
+     * текущей загрузкой и уже учтённые в нём. Повторный просмотр с такого ip количество не увеличивает.
+     * Переходы между наборами выполняются под блокировкой, поэтому ip не может попасть в два набора сразу.
+     */
+    private static class LocalViews {
+        private final Set<String> counted = new HashSet<>();
+        private Set<String> inFlight = new HashSet<>();
+        private Set<String> pending = new HashSet<>();
+
+        synchronized void register(String ip) {
+            if (!counted.contains(ip) && !inFlight.contains(ip)) {
+                pending.add(ip);
+            }
+        }
+
+        synchronized int pending() {
+            return pending.size() + inFlight.size();
+        }
+
+        /**
+         * Отправляет неучтённые ip на учёт перед запросом к stat-server.
+         */
+        synchronized void snapshot() {
+            inFlight.addAll(pending);
+            pending = new HashSet<>();
+        }
+
+        /**
+         * Запрос выполнен: отправленные ip учтены в загруженном значении.
+         */
+        synchronized void markCounted() {
+            counted.addAll(inFlight);
+            inFlight = new HashSet<>();
+        }
+
+        /**
+         * Запрос не выполнен: отправленные ip снова считаются неучтёнными.
+         */
+        synchronized void restore() {
+            pending.addAll(inFlight);
+            inFlight = new HashSet<>();
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package ru.practicum.event.specification;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.event.dto.EventCursor;
 import ru.practicum.event.model.Event;
+import ru.practicum.event.model.Location;
 import ru.practicum.event.model.enums.EventState;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class EventSpecifications {
 
@@ -26,6 +35,68 @@ public class EventSpecifications {
         };
     }
 
+    /**
+     * Полнотекстовый поиск по аннотации и описанию, каждое слово запроса ищется как префикс.
+     * Работает только на PostgreSQL, см. {@link FullTextFunctionContributor}.
+     */
+    public static Specification<Event> textMatches(String text) {
+        String tsQuery = toPrefixTsQuery(text);
+        if (tsQuery.isEmpty()) {
+            return textInAnnotationOrDescription(text);
+        }
+        return (root, query, cb) -> cb.isTrue(cb.function(FullTextFunctionContributor.MATCH, Boolean.class,
+                root.get("annotation"), root.get("description"), cb.literal(tsQuery)));
+    }
+
+    public static Specification<Event> orderByRelevance(String text) {
+        String tsQuery = toPrefixTsQuery(text);
+        return (root, query, cb) -> {
+            // запрос количества строк для страницы не должен содержать сортировку
+            if (!tsQuery.isEmpty() && !Long.class.equals(query.getResultType())) {
+                query.orderBy(
+                        cb.desc(cb.function(FullTextFunctionContributor.RANK, Float.class,
+                                root.get("annotation"), root.get("description"), cb.literal(tsQuery))),
+                        cb.asc(root.get("id")));
+            }
+            return cb.conjunction();
+        };
+    }
+
+    /**
+     * События, место проведения которых не дальше radiusKm километров от точки (lat, lon).
+     * Сначала отбираются точки в описанном прямоугольнике по индексу locations_point_idx,
+     * затем проверяется точное расстояние, см. {@link GeoFunctionContributor}.
+     */
+    public static Specification<Event> withinRadius(double lat, double lon, double radiusKm) {
+        double angle = radiusKm / GeoFunctionContributor.EARTH_RADIUS_KM;
+        double minLat = Math.max(lat - Math.toDegrees(angle), -90);
+        double maxLat = Math.min(lat + Math.toDegrees(angle), 90);
+        double deltaLon = Math.toDegrees(Math.asin(Math.sin(angle) / Math.cos(Math.toRadians(lat))));
+        // у полюса и при переходе через 180-й меридиан ограничивается только широта
+        boolean anyLon = minLat == -90 || maxLat == 90 || Double.isNaN(deltaLon)
+                || lon - deltaLon < -180 || lon + deltaLon > 180;
+        double minLon = anyLon ? -180 : lon - deltaLon;
+        double maxLon = anyLon ? 180 : lon + deltaLon;
+        return (root, query, cb) -> {
+            Join<Event, Location> location = location(root);
+            return cb.and(
+                    cb.isTrue(cb.function(GeoFunctionContributor.IN_BOX, Boolean.class,
+                            location.get("lat"), location.get("lon"),
+                            cb.literal(minLat), cb.literal(minLon), cb.literal(maxLat), cb.literal(maxLon))),
+                    cb.lessThanOrEqualTo(distance(cb, location, lat, lon), radiusKm));
+        };
+    }
+
+    public static Specification<Event> orderByDistance(double lat, double lon) {
+        return (root, query, cb) -> {
+            // запрос количества строк для страницы не должен содержать сортировку
+            if (!Long.class.equals(query.getResultType())) {
+                query.orderBy(cb.asc(distance(cb, location(root), lat, lon)), cb.asc(root.get("id")));
+            }
+            return cb.conjunction();
+        };
+    }
+
     public static Specification<Event> inCategories(List<Long> categories) {
         return (root, query, cb) -> {
             if (categories == null || categories.isEmpty()) {
@@ -86,4 +157,53 @@ public class EventSpecifications {
             return root.get("state").in(states);
         };
     }
+
+    /**
+     * События строго после позиции cursor в порядке (eventDate, id) или (materializedViews DESC, id DESC).
+     * Нестрогое условие по первому ключу позволяет начать чтение индекса сразу с позиции cursor.
+     */
+    public static Specification<Event> after(EventCursor cursor) {
+        if (cursor.byViews()) {
+            return (root, query, cb) -> cb.and(
+                    cb.lessThanOrEqualTo(root.get("materializedViews"), cursor.views()),
+                    cb.or(
+                            cb.lessThan(root.get("materializedViews"), cursor.views()),
+                            cb.lessThan(root.get("id"), cursor.id())
+                    )
+            );
+        }
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("eventDate"), cursor.eventDate()),
+                cb.or(
+                        cb.greaterThan(root.get("eventDate"), cursor.eventDate()),
+                        cb.greaterThan(root.get("id"), cursor.id())
+                )
+        );
+    }
+
+    // фильтр и сортировка по расстоянию используют одно соединение с locations
+    @SuppressWarnings("unchecked")
+    private static Join<Event, Location> location(Root<Event> root) {
+        return root.getJoins().stream()
+                .filter(join -> join.getAttribute().getName().equals("location"))
+                .map(join -> (Join<Event, Location>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("location"));
+    }
+
+    private static Expression<Double> distance(CriteriaBuilder cb, From<?, Location> location,
+                                               double lat, double lon) {
+        return cb.function(GeoFunctionContributor.DISTANCE, Double.class,
+                location.get("lat"), location.get("lon"), cb.literal(lat), cb.literal(lon));
+    }
+
+    private static String toPrefixTsQuery(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Arrays.stream(text.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+    }
 }
@@ -0,0 +1,35 @@
+package ru.practicum.event.specification;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Регистрирует функции полнотекстового поиска PostgreSQL для критериев по событиям.
+ * Выражение to_tsvector совпадает с индексом events_search_idx из schema-postgresql.sql,
+ * иначе PostgreSQL не сможет использовать индекс.
+ */
+public class FullTextFunctionContributor implements FunctionContributor {
+    static final String MATCH = "fts_match";
+    static final String RANK = "fts_rank";
+
+    private static final String DOCUMENT = "to_tsvector('russian', coalesce(?1, '') || ' ' || coalesce(?2, ''))";
+    private static final String QUERY = "to_tsquery('russian', ?3)";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof PostgreSQLDialect)) {
+            return;
+        }
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Float> floatType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.FLOAT);
+        functionContributions.getFunctionRegistry()
+                .registerPattern(MATCH, "(" + DOCUMENT + " @@ " + QUERY + ")", booleanType);
+        functionContributions.getFunctionRegistry()
+                .registerPattern(RANK, "ts_rank(" + DOCUMENT + ", " + QUERY + ")", floatType);
+    }
+}
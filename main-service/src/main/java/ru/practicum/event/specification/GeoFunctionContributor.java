@@ -0,0 +1,39 @@
+package ru.practicum.event.specification;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Регистрирует функции поиска событий по месту проведения.
+ * Выражение point(lon, lat) совпадает с индексом locations_point_idx из schema-postgresql.sql,
+ * иначе PostgreSQL не сможет использовать индекс.
+ */
+public class GeoFunctionContributor implements FunctionContributor {
+    static final String IN_BOX = "geo_in_box";
+    static final String DISTANCE = "geo_distance";
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        if (!(functionContributions.getDialect() instanceof PostgreSQLDialect)) {
+            return;
+        }
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Double> doubleType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.DOUBLE);
+        // geo_in_box(lat, lon, minLat, minLon, maxLat, maxLon)
+        functionContributions.getFunctionRegistry()
+                .registerPattern(IN_BOX, "(point(?2, ?1) <@ box(point(?4, ?3), point(?6, ?5)))", booleanType);
+        // geo_distance(lat, lon, lat0, lon0) — расстояние по большому кругу в километрах (формула гаверсинусов)
+        functionContributions.getFunctionRegistry()
+                .registerPattern(DISTANCE, "(" + EARTH_RADIUS_KM + " * 2 * asin(least(1, sqrt("
+                        + "power(sin(radians(?3 - ?1) / 2), 2)"
+                        + " + cos(radians(?1)) * cos(radians(?3)) * power(sin(radians(?4 - ?2) / 2), 2)))))",
+                        doubleType);
+    }
+}
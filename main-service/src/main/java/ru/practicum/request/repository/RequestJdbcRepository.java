@@ -0,0 +1,84 @@
+package ru.practicum.request.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.request.dto.ParticipationRequestDto;
+import ru.practicum.request.model.enums.RequestState;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class RequestJdbcRepository {
+    private static final String LOCK_EVENT = "SELECT id FROM events WHERE id = :eventId FOR UPDATE";
+    // выполняется после LOCK_EVENT отдельным запросом, чтобы снимок данных был взят уже под блокировкой;
+    // заявки, изменённые параллельно (например, отменённые), повторно проверяются в UPDATE и пропускаются
+    private static final String UPDATE_STATUSES = """
+            WITH event AS (
+                SELECT participant_limit - confirmed_request AS available
+                FROM events
+                WHERE id = :eventId
+            ),
+            pending AS (
+                SELECT r.id,
+                       r.id IN (:ids) AS requested,
+                       row_number() OVER (PARTITION BY r.id IN (:ids) ORDER BY r.id) AS n
+                FROM requests r
+                WHERE r.event_id = :eventId AND r.status = 'PENDING'
+            ),
+            decision AS (
+                SELECT p.id,
+                       p.requested,
+                       CASE WHEN :status = 'CONFIRMED' AND p.requested AND p.n <= e.available
+                            THEN 'CONFIRMED' ELSE 'REJECTED' END AS status
+                FROM pending p, event e
+                WHERE p.requested
+                   OR (:status = 'CONFIRMED'
+                       AND (SELECT count(*) FROM pending WHERE requested) >= e.available)
+            ),
+            updated AS (
+                UPDATE requests r
+                SET status = d.status
+                FROM decision d
+                WHERE r.id = d.id AND r.status = 'PENDING'
+                RETURNING r.id, r.event_id, r.requester_id, r.status, r.created, d.requested
+            ),
+            seats AS (
+                UPDATE events
+                SET confirmed_request = confirmed_request
+                    + (SELECT count(*) FROM updated WHERE status = 'CONFIRMED')
+                WHERE id = :eventId
+            )
+            SELECT id, event_id, requester_id, status, created
+            FROM updated
+            WHERE requested
+            ORDER BY id
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Меняет статус заявок события под блокировкой строки события; вызывается в транзакции.
+     * При подтверждении заявки в статусе PENDING подтверждаются по возрастанию id, пока есть свободные места,
+     * остальные отклоняются; если места закончились, отклоняются и все прочие ожидающие заявки события.
+     *
+     * @return изменённые заявки из ids
+     */
+    public List<ParticipationRequestDto> updateStatuses(Long eventId, Collection<Long> ids, RequestState status) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("ids", ids)
+                .addValue("status", status.name());
+        jdbcTemplate.queryForList(LOCK_EVENT, params, Long.class);
+        return jdbcTemplate.query(UPDATE_STATUSES, params, (rs, rowNum) -> ParticipationRequestDto.builder()
+                .id(rs.getLong("id"))
+                .event(rs.getLong("event_id"))
+                .requester(rs.getLong("requester_id"))
+                .status(RequestState.valueOf(rs.getString("status")))
+                .created(rs.getTimestamp("created").toLocalDateTime())
+                .build());
+    }
+}
@@ -2,11 +2,13 @@ package ru.practicum.request.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.event.model.Event;
 import ru.practicum.event.model.enums.EventState;
 import ru.practicum.event.repository.EventRepository;
+import ru.practicum.event.service.EventsChangedEvent;
 import ru.practicum.exception.ConflictException;
 import ru.practicum.exception.DuplicateRequestException;
 import ru.practicum.exception.NotFoundException;
@@ -31,6 +33,7 @@ public class RequestServiceImpl implements RequestService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final RequestMapper requestMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ParticipationRequestDto createRequest(Long userId, Long eventId) {
@@ -50,7 +53,10 @@ public class RequestServiceImpl implements RequestService {
         RequestState state;
         if (!event.getRequestModeration() || event.getParticipantLimit() == 0) {
             state = RequestState.CONFIRMED;
-            event.setConfirmedRequests(event.getConfirmedRequests() + 1);
+            if (eventRepository.reserveSeats(eventId, 1) == 0) {
+                throw new ConflictException("Закончились места на мероприятия");
+            }
+            eventPublisher.publishEvent(new EventsChangedEvent(List.of(eventId)));
         } else {
             state = RequestState.PENDING;
         }
@@ -62,10 +68,6 @@ public class RequestServiceImpl implements RequestService {
                 .created(LocalDateTime.now())
                 .build();
         Request saveRequest = requestRepository.save(request);
-        if (request.getStatus() == RequestState.CONFIRMED) {
-            event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-            eventRepository.save(event);
-        }
         log.info("Запрос на участие в событии успешно создан");
         return requestMapper.toRequestDto(saveRequest);
     }
@@ -86,6 +88,10 @@ public class RequestServiceImpl implements RequestService {
         if (!request.getRequester().getId().equals(userId)) {
             throw new ConflictException("Пользователь не может отменить чужой запрос");
         }
+        if (request.getStatus() == RequestState.CONFIRMED) {
+            eventRepository.releaseSeat(request.getEvent().getId());
+            eventPublisher.publishEvent(new EventsChangedEvent(List.of(request.getEvent().getId())));
+        }
         request.setStatus(RequestState.CANCELED);
         Request saveRequest = requestRepository.save(request);
         log.info("Запрос на участие в событие успешно отменен");
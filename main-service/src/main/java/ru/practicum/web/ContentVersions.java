@@ -0,0 +1,180 @@
+package ru.practicum.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.practicum.category.service.CategoryChangedEvent;
+import ru.practicum.event.service.EventsChangedEvent;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии данных публичного API для условных запросов (ETag, If-None-Match, Last-Modified).
+ * Версия — время последнего изменения в миллисекундах. Она сдвигается после коммита изменений в этом экземпляре
+ * и периодически сверяется с колонками updated_on, чтобы учесть изменения из других экземпляров сервиса.
+ * Проверка по версии не обращается к базе, поэтому ответ 304 отдаётся без запросов к БД и stat-server.
+ * ETag одного события — версия событий и текущее число просмотров, то же, что попадает в тело ответа.
+ * Если событие уже отдавалось опубликованным при текущей версии, 304 для него тоже отдаётся без обращения к базе,
+ * а просмотры берутся из локального кэша.
+ */
+@Slf4j
+@Component
+public class ContentVersions {
+    private static final String CATEGORIES_VERSION = """
+            SELECT (EXTRACT(EPOCH FROM COALESCE(MAX(updated_on), 'epoch')) * 1000)::BIGINT AS modified,
+                   COUNT(*) AS total
+            FROM categories
+            """;
+    private static final String EVENTS_VERSION =
+            "SELECT (EXTRACT(EPOCH FROM COALESCE(MAX(updated_on), 'epoch')) * 1000)::BIGINT FROM events";
+    private static final long MINUTE_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheControl shared;
+    private final CacheControl revalidated = CacheControl.noCache().cachePublic();
+
+    private final AtomicLong categories = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    // удаление категории не меняет MAX(updated_on), поэтому сверяется и количество строк
+    private volatile long categoriesCount = -1;
+    // id события -> версия событий, при которой оно было отдано опубликованным
+    private final Cache<Long, Long> publishedEvents;
+
+    public ContentVersions(JdbcTemplate jdbcTemplate,
+                           @Value("${ewm.http.cache.max-age:60s}") Duration maxAge,
+                           @Value("${ewm.http.published-events.maximum-size:10000}") long publishedEventsSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shared = CacheControl.maxAge(maxAge).cachePublic();
+        this.publishedEvents = Caffeine.newBuilder()
+                .maximumSize(publishedEventsSize)
+                .build();
+    }
+
+    public long categories() {
+        return categories.get();
+    }
+
+    /**
+     * Версия событий; учитывает категории, так как их названия входят в ответы.
+     */
+    public long events() {
+        return Math.max(events.get(), categories.get());
+    }
+
+    /**
+     * Версия списков событий. Список зависит и от текущего времени (прошедшие события выпадают из выдачи),
+     * поэтому версия меняется не реже раза в минуту.
+     */
+    public long eventLists() {
+        long now = System.currentTimeMillis();
+        return Math.max(events(), now - now % MINUTE_MILLIS);
+    }
+
+    /**
+     * Запоминает, что событие было опубликовано при версии событий version.
+     */
+    public void markPublished(long eventId, long version) {
+        publishedEvents.put(eventId, version);
+    }
+
+    /**
+     * Было ли событие опубликовано при версии version. Любое изменение события сдвигает версию,
+     * поэтому при совпадении событие опубликовано и сейчас.
+     */
+    public boolean isPublished(long eventId, long version) {
+        Long published = publishedEvents.getIfPresent(eventId);
+        return published != null && published == version;
+    }
+
+    /**
+     * Для ответов, которые можно хранить в общих кэшах (CDN) до max-age без перепроверки.
+     */
+    public CacheControl shared() {
+        return shared;
+    }
+
+    /**
+     * Для ответов, которые кэш должен перепроверять при каждом запросе: обращение к событию считается просмотром.
+     */
+    public CacheControl revalidated() {
+        return revalidated;
+    }
+
+    /**
+     * Выставляет Cache-Control, ETag и Last-Modified и проверяет If-None-Match и If-Modified-Since.
+     *
+     * @return true, если клиенту уже отправлен ответ 304 и тело формировать не нужно
+     */
+    public boolean checkNotModified(ServletWebRequest request, long version, CacheControl cacheControl) {
+        setCacheControl(request, cacheControl);
+        return request.checkNotModified(Long.toString(version, 36), version);
+    }
+
+    /**
+     * Выставляет Cache-Control и ETag одного события и проверяет If-None-Match.
+     * Last-Modified не выставляется: число просмотров меняется без изменения события.
+     *
+     * @return true, если клиенту уже отправлен ответ 304
+     */
+    public boolean checkNotModified(ServletWebRequest request, long eventId, long version, long views,
+                                    CacheControl cacheControl) {
+        setCacheControl(request, cacheControl);
+        return request.checkNotModified(Long.toString(eventId, 36) + "-" + Long.toString(version, 36)
+                + "-" + Long.toString(views, 36));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventsChanged(EventsChangedEvent event) {
+        bump(events);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bump(categories);
+    }
+
+    @Scheduled(initialDelayString = "${ewm.http.versions.initial-delay:PT0S}",
+            fixedDelayString = "${ewm.http.versions.sync-interval:PT10S}")
+    public void sync() {
+        try {
+            jdbcTemplate.query(CATEGORIES_VERSION, rs -> {
+                long total = rs.getLong("total");
+                if (categoriesCount >= 0 && total != categoriesCount) {
+                    bump(categories);
+                }
+                categoriesCount = total;
+                advance(categories, rs.getLong("modified"));
+            });
+            Long modified = jdbcTemplate.queryForObject(EVENTS_VERSION, Long.class);
+            if (modified != null) {
+                advance(events, modified);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Версии данных не получены из базы: {}", e.toString());
+        }
+    }
+
+    private static void setCacheControl(ServletWebRequest request, CacheControl cacheControl) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+    }
+
+    private static void bump(AtomicLong version) {
+        version.accumulateAndGet(System.currentTimeMillis(), (previous, now) -> Math.max(previous + 1, now));
+    }
+
+    private static void advance(AtomicLong version, long modified) {
+        version.accumulateAndGet(modified, Math::max);
+    }
+}
@@ -1,54 +0,0 @@
-CREATE TABLE IF NOT EXISTS users (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    name  VARCHAR(250) NOT NULL,
-    email VARCHAR(254) NOT NULL UNIQUE
-);
-
-CREATE TABLE IF NOT EXISTS categories (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    name  VARCHAR(50) NOT NULL UNIQUE
-);
-
-CREATE TABLE IF NOT EXISTS compilations (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    pinned BOOLEAN NOT NULL,
-    title VARCHAR(50) NOT NULL
-);
-
-CREATE TABLE IF NOT EXISTS locations (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    lat DOUBLE PRECISION NOT NULL,
-    lon DOUBLE PRECISION NOT NULL
-);
-
-CREATE TABLE IF NOT EXISTS events (
-    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-    annotation VARCHAR(2000) NOT NULL,
-    category_id BIGINT NOT NULL REFERENCES categories (id),
-    initiator_id BIGINT NOT NULL REFERENCES users (id),
-    location_id BIGINT NOT NULL REFERENCES locations (id),
-    state VARCHAR NOT NULL,
-    event_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
-    description VARCHAR(7000) NOT NULL,
-    title VARCHAR NOT NULL,
-    paid BOOLEAN NOT NULL,
-    participant_limit INTEGER NOT NUll,
-    request_moderation BOOLEAN NOT NULL,
-    created_on TIMESTAMP WITHOUT TIME ZONE,
-    confirmed_request INTEGER NOT NUll,
-    published_on TIMESTAMP WITHOUT TIME ZONE,
-);
-
-CREATE TABLE IF NOT EXISTS requests (
-     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-     event_id BIGINT NOT NULL REFERENCES events (id) ON DELETE CASCADE,
-     requester_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
-     status VARCHAR NOT NULL,
-     created TIMESTAMP WITHOUT TIME ZONE
-);
-
-CREATE TABLE IF NOT EXISTS compilations_events (
-    compilation_id BIGINT REFERENCES compilations (id) ON DELETE CASCADE,
-    event_id BIGINT REFERENCES events (id) ON DELETE CASCADE,
-    CONSTRAINT pk_compilation_of_events PRIMARY KEY (compilation_id, event_id)
-);
\ No newline at end of file
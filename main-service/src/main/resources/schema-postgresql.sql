@@ -0,0 +1,4 @@
+CREATE INDEX IF NOT EXISTS events_search_idx ON events
+    USING GIN (to_tsvector('russian', coalesce(annotation, '') || ' ' || coalesce(description, '')));
+
+CREATE INDEX IF NOT EXISTS locations_point_idx ON locations USING GIST (point(lon, lat));
@@ -0,0 +1,91 @@
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name  VARCHAR(250) NOT NULL,
+    email VARCHAR(254) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS categories (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name  VARCHAR(50) NOT NULL UNIQUE,
+    updated_on TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE TABLE IF NOT EXISTS compilations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    pinned BOOLEAN NOT NULL,
+    title VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS locations (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    lat DOUBLE PRECISION NOT NULL,
+    lon DOUBLE PRECISION NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS events (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    annotation VARCHAR(2000) NOT NULL,
+    category_id BIGINT NOT NULL REFERENCES categories (id),
+    initiator_id BIGINT NOT NULL REFERENCES users (id),
+    location_id BIGINT NOT NULL REFERENCES locations (id),
+    state VARCHAR NOT NULL,
+    event_date TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    description VARCHAR(7000) NOT NULL,
+    title VARCHAR NOT NULL,
+    paid BOOLEAN NOT NULL,
+    participant_limit INTEGER NOT NUll,
+    request_moderation BOOLEAN NOT NULL,
+    created_on TIMESTAMP WITHOUT TIME ZONE,
+    confirmed_request INTEGER NOT NUll,
+    published_on TIMESTAMP WITHOUT TIME ZONE,
+    materialized_views BIGINT NOT NULL DEFAULT 0,
+    updated_on TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT clock_timestamp()
+);
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS materialized_views BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE events ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT clock_timestamp();
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS updated_on TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT clock_timestamp();
+
+-- updated_on меняется при любом UPDATE, в том числе из JPQL и JdbcTemplate; по нему строятся ETag публичного API
+CREATE OR REPLACE FUNCTION touch_updated_on() RETURNS TRIGGER AS '
+BEGIN
+    NEW.updated_on = clock_timestamp();
+    RETURN NEW;
+END' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS events_touch_updated_on ON events;
+CREATE TRIGGER events_touch_updated_on BEFORE UPDATE ON events
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_on();
+
+DROP TRIGGER IF EXISTS categories_touch_updated_on ON categories;
+CREATE TRIGGER categories_touch_updated_on BEFORE UPDATE ON categories
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_on();
+
+CREATE INDEX IF NOT EXISTS events_event_date_idx ON events (event_date, id);
+CREATE INDEX IF NOT EXISTS events_initiator_idx ON events (initiator_id, event_date, id);
+CREATE INDEX IF NOT EXISTS events_views_idx ON events (materialized_views, id);
+CREATE INDEX IF NOT EXISTS events_updated_on_idx ON events (updated_on);
+CREATE INDEX IF NOT EXISTS events_location_idx ON events (location_id);
+
+-- поиск места по координатам; после слияния дубликатов LocationCompactor заменяет его уникальным locations_coordinates_uq
+DO '
+BEGIN
+    IF to_regclass(''locations_coordinates_uq'') IS NULL THEN
+        CREATE INDEX IF NOT EXISTS locations_coordinates_idx
+            ON locations (round(lat * 100000), round(lon * 100000));
+    END IF;
+END';
+
+CREATE TABLE IF NOT EXISTS requests (
+     id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+     event_id BIGINT NOT NULL REFERENCES events (id) ON DELETE CASCADE,
+     requester_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+     status VARCHAR NOT NULL,
+     created TIMESTAMP WITHOUT TIME ZONE
+);
+
+CREATE TABLE IF NOT EXISTS compilations_events (
+    compilation_id BIGINT REFERENCES compilations (id) ON DELETE CASCADE,
+    event_id BIGINT REFERENCES events (id) ON DELETE CASCADE,
+    CONSTRAINT pk_compilation_of_events PRIMARY KEY (compilation_id, event_id)
+);
\ No newline at end of file
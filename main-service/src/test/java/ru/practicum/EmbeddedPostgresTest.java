@@ -0,0 +1,113 @@
+package ru.practicum;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.catalina.webresources.TomcatURLStreamHandlerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.practicum.category.dto.CategoryRequestDto;
+import ru.practicum.category.service.CategoryService;
+import ru.practicum.event.dto.EventFullDto;
+import ru.practicum.event.dto.LocationDto;
+import ru.practicum.event.dto.NewEventDto;
+import ru.practicum.event.dto.UpdateEventAdminRequest;
+import ru.practicum.event.model.enums.EventStateAdminAction;
+import ru.practicum.event.service.EventService;
+import ru.practicum.user.dto.UserRequestDto;
+import ru.practicum.user.service.UserService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Интеграционные тесты на встроенном PostgreSQL: схема использует возможности, которых нет в других базах.
+ * Один экземпляр базы и один контекст Spring на все тесты; stat-server заменён заглушкой StatClient.
+ * Профиль test откладывает фоновые задачи, чтобы их запросы не попадали в замеры.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(StatementCounter.class)
+public abstract class EmbeddedPostgresTest {
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    static {
+        // URL вида classpath: (hibernate.javax.cache.uri) разбирает обработчик Tomcat, а с MockMvc Tomcat не запускается
+        TomcatURLStreamHandlerFactory.register();
+    }
+
+    @MockBean
+    protected StatClient statClient;
+
+    @Autowired
+    protected UserService userService;
+
+    @Autowired
+    protected CategoryService categoryService;
+
+    @Autowired
+    protected EventService eventService;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+    }
+
+    protected long createUser() {
+        int n = SEQUENCE.incrementAndGet();
+        return userService.createUser(new UserRequestDto("user" + n + "@test.ru", "User " + n)).getId();
+    }
+
+    protected long createCategory() {
+        return categoryService.createCategory(new CategoryRequestDto("Category " + SEQUENCE.incrementAndGet()))
+                .getId();
+    }
+
+    protected EventFullDto createPublishedEvent(long initiatorId, long categoryId, int participantLimit,
+                                                boolean requestModeration) {
+        EventFullDto event = createPendingEvent(initiatorId, categoryId, participantLimit, requestModeration);
+        return eventService.updateEventFromAdmin(event.getId(), UpdateEventAdminRequest.builder()
+                .stateAction(EventStateAdminAction.PUBLISH_EVENT)
+                .build());
+    }
+
+    protected EventFullDto createPendingEvent(long initiatorId, long categoryId, int participantLimit,
+                                              boolean requestModeration) {
+        int n = SEQUENCE.incrementAndGet();
+        return eventService.createEvent(NewEventDto.builder()
+                .annotation("Annotation of test event number " + n)
+                .description("Description of test event number " + n)
+                .category(categoryId)
+                .eventDate(LocalDateTime.now().plusDays(10).withNano(0))
+                .location(new LocationDto(55.0f + n / 1000f, 37.0f + n / 1000f))
+                .participantLimit(participantLimit)
+                .requestModeration(requestModeration)
+                .title("Test event " + n)
+                .build(), initiatorId);
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.event;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.StatementCounter;
+import ru.practicum.request.service.RequestService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Количество SQL-запросов при чтении событий не зависит от числа событий на странице (нет N+1).
+ * Запросы считаются на уровне DataSource, поэтому учитываются и запросы через JdbcTemplate.
+ * Все события страницы — от разных инициаторов, в разных категориях и местах. Кэш второго уровня перед замером
+ * очищается, поэтому числа — для холодного кэша.
+ */
+class EventQueryCountTest extends EmbeddedPostgresTest {
+    private static final long PUBLIC_LIST_STATEMENTS = 1;
+    private static final long ADMIN_LIST_STATEMENTS = 1;
+    private static final long EVENT_STATEMENTS = 1;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Test
+    void publicListUsesFixedNumberOfStatements() throws Exception {
+        List<Long> categories = new ArrayList<>();
+        createEvents(categories, 2);
+        long few = countStatements(publicList(categories), 2);
+        createEvents(categories, 8);
+        long many = countStatements(publicList(categories), 10);
+
+        assertEquals(PUBLIC_LIST_STATEMENTS, few);
+        assertEquals(few, many);
+    }
+
+    @Test
+    void adminListUsesFixedNumberOfStatements() throws Exception {
+        List<Long> categories = new ArrayList<>();
+        createEvents(categories, 2);
+        long few = countStatements(adminList(categories), 2);
+        createEvents(categories, 8);
+        long many = countStatements(adminList(categories), 10);
+
+        assertEquals(ADMIN_LIST_STATEMENTS, few);
+        assertEquals(few, many);
+    }
+
+    @Test
+    void publishedEventUsesFixedNumberOfStatements() throws Exception {
+        long eventId = createPublishedEvent(createUser(), createCategory(), 0, true).getId();
+
+        assertEquals(EVENT_STATEMENTS, countStatements(get("/events/{id}", eventId), null));
+    }
+
+    @Test
+    void requestStatusUpdateUsesFixedNumberOfStatements() throws Exception {
+        long few = countStatements(confirmRequests(2), null);
+        long many = countStatements(confirmRequests(10), null);
+
+        assertEquals(few, many);
+    }
+
+    private MockHttpServletRequestBuilder confirmRequests(int count) {
+        long initiatorId = createUser();
+        long eventId = createPublishedEvent(initiatorId, createCategory(), 100, true).getId();
+        List<Long> requestIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requestIds.add(requestService.createRequest(createUser(), eventId).getId());
+        }
+        return patch("/users/{userId}/events/{eventId}/requests", initiatorId, eventId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"requestIds\":%s,\"status\":\"CONFIRMED\"}".formatted(requestIds));
+    }
+
+    private void createEvents(List<Long> categories, int count) {
+        for (int i = 0; i < count; i++) {
+            long categoryId = createCategory();
+            categories.add(categoryId);
+            createPublishedEvent(createUser(), categoryId, 0, true);
+        }
+    }
+
+    private MockHttpServletRequestBuilder publicList(List<Long> categories) {
+        return get("/events")
+                .param("categories", ids(categories))
+                .param("size", "20");
+    }
+
+    private MockHttpServletRequestBuilder adminList(List<Long> categories) {
+        return get("/admin/events")
+                .param("categories", ids(categories))
+                .param("size", "20");
+    }
+
+    private long countStatements(MockHttpServletRequestBuilder request, Integer expectedSize) throws Exception {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        statementCounter.reset();
+        var result = mockMvc.perform(request).andExpect(status().isOk());
+        if (expectedSize != null) {
+            result.andExpect(jsonPath("$.length()").value(expectedSize));
+        }
+        return statementCounter.count();
+    }
+
+    private static String[] ids(List<Long> ids) {
+        return ids.stream()
+                .map(String::valueOf)
+                .toArray(String[]::new);
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.event;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.event.model.Location;
+import ru.practicum.event.repository.LocationJdbcRepository;
+import ru.practicum.event.repository.LocationRepository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Места, удалённые через JDBC, не остаются в кэше второго уровня; кэш сбрасывается только после фиксации удаления.
+ */
+class LocationCacheTest extends EmbeddedPostgresTest {
+    @Autowired
+    private LocationJdbcRepository locationJdbcRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void deletedOrphanIsEvictedFromSecondLevelCache() {
+        long id = locationJdbcRepository.insert(-33.5f, 151.5f).orElseThrow();
+        transactionTemplate.executeWithoutResult(status -> locationRepository.findById(id).orElseThrow());
+        assertTrue(entityManagerFactory.getCache().contains(Location.class, id));
+
+        locationJdbcRepository.deleteOrphans(Integer.MAX_VALUE);
+
+        assertFalse(entityManagerFactory.getCache().contains(Location.class, id));
+        assertFalse(locationRepository.findById(id).isPresent());
+    }
+
+    @Test
+    void cacheIsEvictedAfterCommit() {
+        long id = locationJdbcRepository.insert(-34.5f, 150.5f).orElseThrow();
+        transactionTemplate.executeWithoutResult(status -> locationRepository.findById(id).orElseThrow());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            locationJdbcRepository.deleteOrphans(Integer.MAX_VALUE);
+            assertTrue(entityManagerFactory.getCache().contains(Location.class, id));
+        });
+
+        assertFalse(entityManagerFactory.getCache().contains(Location.class, id));
+    }
+
+    @Test
+    void cacheIsKeptAfterRollback() {
+        long id = locationJdbcRepository.insert(-35.5f, 149.5f).orElseThrow();
+        transactionTemplate.executeWithoutResult(status -> locationRepository.findById(id).orElseThrow());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            locationJdbcRepository.deleteOrphans(Integer.MAX_VALUE);
+            status.setRollbackOnly();
+        });
+
+        assertTrue(entityManagerFactory.getCache().contains(Location.class, id));
+        assertTrue(locationRepository.findById(id).isPresent());
+    }
+}
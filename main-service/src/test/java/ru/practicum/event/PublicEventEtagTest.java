@@ -0,0 +1,97 @@
+package ru.practicum.event;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.event.service.EventsChangedEvent;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Условные запросы к публичному событию: ETag своё у каждого события, меняется вместе с ним и не скрывает 404.
+ */
+class PublicEventEtagTest extends EmbeddedPostgresTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void unchangedEventIsNotModified() throws Exception {
+        long eventId = createPublishedEvent(createUser(), createCategory(), 0, true).getId();
+        String etag = etag(eventId);
+
+        mockMvc.perform(get("/events/{id}", eventId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void viewFromNewIpIsModified() throws Exception {
+        long eventId = createPublishedEvent(createUser(), createCategory(), 0, true).getId();
+        String etag = etag(eventId);
+
+        mockMvc.perform(get("/events/{id}", eventId)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .with(request -> {
+                            request.setRemoteAddr("10.0.0.2");
+                            return request;
+                        }))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.views").value(1))
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    void changedEventIsModified() throws Exception {
+        long eventId = createPublishedEvent(createUser(), createCategory(), 0, true).getId();
+        String etag = etag(eventId);
+
+        eventPublisher.publishEvent(new EventsChangedEvent(List.of(eventId)));
+
+        mockMvc.perform(get("/events/{id}", eventId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void etagDependsOnEvent() throws Exception {
+        long categoryId = createCategory();
+        long first = createPublishedEvent(createUser(), categoryId, 0, true).getId();
+        long second = createPublishedEvent(createUser(), categoryId, 0, true).getId();
+        String etag = etag(first);
+
+        assertNotEquals(etag, etag(second));
+        mockMvc.perform(get("/events/{id}", second).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void unpublishedOrMissingEventIsNotFoundEvenWithEtag() throws Exception {
+        long published = createPublishedEvent(createUser(), createCategory(), 0, true).getId();
+        long pending = createPendingEvent(createUser(), createCategory(), 0, true).getId();
+        String etag = etag(published);
+
+        mockMvc.perform(get("/events/{id}", pending).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/events/{id}", Long.MAX_VALUE).header(HttpHeaders.IF_NONE_MATCH, "*"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String etag(long eventId) throws Exception {
+        return mockMvc.perform(get("/events/{id}", eventId))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(HttpHeaders.ETAG);
+    }
+}
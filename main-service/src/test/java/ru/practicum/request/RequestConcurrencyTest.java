@@ -0,0 +1,137 @@
+package ru.practicum.request;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.event.dto.EventRequestStatusUpdateRequest;
+import ru.practicum.event.dto.EventRequestStatusUpdateResult;
+import ru.practicum.exception.ConflictException;
+import ru.practicum.request.dto.ParticipationRequestDto;
+import ru.practicum.request.model.enums.RequestState;
+import ru.practicum.request.service.RequestService;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Параллельные заявки и их подтверждение не превышают лимит участников; каждая заявка сверх лимита отклоняется.
+ */
+class RequestConcurrencyTest extends EmbeddedPostgresTest {
+    private static final int PARTICIPANT_LIMIT = 5;
+    private static final int REQUESTERS = 40;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void parallelRequestsDoNotOversellEvent() throws Exception {
+        long eventId = createPublishedEvent(createUser(), createCategory(), PARTICIPANT_LIMIT, false).getId();
+        Map<Long, Callable<Boolean>> tasks = new LinkedHashMap<>();
+        for (int i = 0; i < REQUESTERS; i++) {
+            long requesterId = createUser();
+            tasks.put(requesterId, () -> {
+                try {
+                    requestService.createRequest(requesterId, eventId);
+                    return true;
+                } catch (ConflictException e) {
+                    return false;
+                }
+            });
+        }
+
+        Set<Long> accepted = runConcurrently(tasks);
+
+        assertEquals(PARTICIPANT_LIMIT, accepted.size());
+        // отклонённые заявки не сохраняются: в базе ровно заявки принятых участников, и все подтверждены
+        assertEquals(accepted, new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT requester_id FROM requests WHERE event_id = ?", Long.class, eventId)));
+        assertEquals(PARTICIPANT_LIMIT, countRequests(eventId, RequestState.CONFIRMED));
+        assertEquals(PARTICIPANT_LIMIT, confirmedRequests(eventId));
+    }
+
+    @Test
+    void parallelConfirmationsDoNotOversellEvent() throws Exception {
+        long initiatorId = createUser();
+        long eventId = createPublishedEvent(initiatorId, createCategory(), PARTICIPANT_LIMIT, true).getId();
+        Map<Long, Callable<Boolean>> tasks = new LinkedHashMap<>();
+        for (int i = 0; i < REQUESTERS; i++) {
+            long requestId = requestService.createRequest(createUser(), eventId).getId();
+            tasks.put(requestId, () -> {
+                try {
+                    EventRequestStatusUpdateResult result = eventService.updateRequestStatus(initiatorId, eventId,
+                            new EventRequestStatusUpdateRequest(Set.of(requestId), RequestState.CONFIRMED));
+                    assertEquals(List.of(requestId), result.getConfirmedRequests().stream()
+                            .map(ParticipationRequestDto::getId)
+                            .toList());
+                    return true;
+                } catch (ConflictException e) {
+                    // места закончились или заявка уже отклонена вместе с остальными ожидающими
+                    return false;
+                }
+            });
+        }
+
+        Set<Long> confirmed = runConcurrently(tasks);
+
+        assertEquals(PARTICIPANT_LIMIT, confirmed.size());
+        assertEquals(confirmed, new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM requests WHERE event_id = ? AND status = 'CONFIRMED'", Long.class, eventId)));
+        assertEquals(REQUESTERS - PARTICIPANT_LIMIT, countRequests(eventId, RequestState.REJECTED));
+        assertEquals(0, countRequests(eventId, RequestState.PENDING));
+        assertEquals(PARTICIPANT_LIMIT, confirmedRequests(eventId));
+    }
+
+    /**
+     * Запускает задачи одновременно и возвращает ключи тех, что завершились успешно.
+     * Остальные задачи получили ConflictException: любая другая ошибка проваливает тест.
+     */
+    private static Set<Long> runConcurrently(Map<Long, Callable<Boolean>> tasks) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Map<Long, Future<Boolean>> results = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(tasks.size())) {
+            tasks.forEach((key, task) -> results.put(key, executor.submit(() -> {
+                start.await();
+                return task.call();
+            })));
+            start.countDown();
+        }
+
+        Set<Long> succeeded = new HashSet<>();
+        for (Map.Entry<Long, Future<Boolean>> result : results.entrySet()) {
+            try {
+                if (result.getValue().get()) {
+                    succeeded.add(result.getKey());
+                }
+            } catch (ExecutionException e) {
+                throw new AssertionError("Задача " + result.getKey() + " завершилась неожиданной ошибкой",
+                        e.getCause());
+            }
+        }
+        return succeeded;
+    }
+
+    private int countRequests(long eventId, RequestState status) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE event_id = ? AND status = ?",
+                Integer.class, eventId, status.name());
+    }
+
+    private int confirmedRequests(long eventId) {
+        return jdbcTemplate.queryForObject("SELECT confirmed_request FROM events WHERE id = ?", Integer.class,
+                eventId);
+    }
+}
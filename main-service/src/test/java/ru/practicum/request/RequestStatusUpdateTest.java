@@ -0,0 +1,137 @@
+package ru.practicum.request;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.EmbeddedPostgresTest;
+import ru.practicum.request.service.RequestService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Изменение статуса заявок инициатором события.
+ */
+class RequestStatusUpdateTest extends EmbeddedPostgresTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RequestService requestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void duplicateRequestIdsAreConfirmedOnce() throws Exception {
+        long initiatorId = createUser();
+        long eventId = createPublishedEvent(initiatorId, createCategory(), 10, true).getId();
+        long requestId = requestService.createRequest(createUser(), eventId).getId();
+
+        mockMvc.perform(patch("/users/{userId}/events/{eventId}/requests", initiatorId, eventId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requestIds\":[%d,%d],\"status\":\"CONFIRMED\"}".formatted(requestId, requestId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.confirmedRequests.length()").value(1))
+                .andExpect(jsonPath("$.rejectedRequests.length()").value(0));
+
+        assertEquals(1, confirmedRequests(eventId));
+    }
+
+    @Test
+    void canceledRequestIsNotConfirmed() throws Exception {
+        long initiatorId = createUser();
+        long eventId = createPublishedEvent(initiatorId, createCategory(), 10, true).getId();
+        long requesterId = createUser();
+        long requestId = requestService.createRequest(requesterId, eventId).getId();
+        requestService.cancelRequest(requesterId, requestId);
+
+        mockMvc.perform(patch("/users/{userId}/events/{eventId}/requests", initiatorId, eventId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requestIds\":[%d],\"status\":\"CONFIRMED\"}".formatted(requestId)))
+                .andExpect(status().isConflict());
+
+        assertEquals("CANCELED", jdbcTemplate.queryForObject(
+                "SELECT status FROM requests WHERE id = ?", String.class, requestId));
+        assertEquals(0, confirmedRequests(eventId));
+    }
+
+    @Test
+    void confirmationOverLimitRejectsTheRest() throws Exception {
+        long initiatorId = createUser();
+        long eventId = createPublishedEvent(initiatorId, createCategory(), 2, true).getId();
+        long first = requestService.createRequest(createUser(), eventId).getId();
+        long second = requestService.createRequest(createUser(), eventId).getId();
+        long third = requestService.createRequest(createUser(), eventId).getId();
+        long notRequested = requestService.createRequest(createUser(), eventId).getId();
+
+        mockMvc.perform(patch("/users/{userId}/events/{eventId}/requests", initiatorId, eventId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requestIds\":[%d,%d,%d],\"status\":\"CONFIRMED\"}"
+                                .formatted(third, first, second)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.confirmedRequests.length()").value(2))
+                .andExpect(jsonPath("$.confirmedRequests[0].id").value(first))
+                .andExpect(jsonPath("$.confirmedRequests[1].id").value(second))
+                .andExpect(jsonPath("$.rejectedRequests.length()").value(1))
+                .andExpect(jsonPath("$.rejectedRequests[0].id").value(third));
+
+        assertEquals(2, confirmedRequests(eventId));
+        // места закончились, поэтому отклонена и ожидающая заявка, не указанная в запросе
+        assertEquals("REJECTED", requestStatus(notRequested));
+    }
+
+    @Test
+    void alreadyProcessedRequestFailsWholeUpdate() throws Exception {
+        long initiatorId = createUser();
+        long eventId = createPublishedEvent(initiatorId, createCategory(), 10, true).getId();
+        long confirmed = requestService.createRequest(createUser(), eventId).getId();
+        long pending = requestService.createRequest(createUser(), eventId).getId();
+        mockMvc.perform(patch("/users/{userId}/events/{eventId}/requests", initiatorId, eventId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requestIds\":[%d],\"status\":\"CONFIRMED\"}".formatted(confirmed)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(patch("/users/{userId}/events/{eventId}/requests", initiatorId, eventId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requestIds\":[%d,%d],\"status\":\"REJECTED\"}".formatted(confirmed, pending)))
+                .andExpect(status().isConflict());
+
+        // изменение откатывается целиком: ожидающая заявка не отклонена, подтверждённая не тронута
+        assertEquals("CONFIRMED", requestStatus(confirmed));
+        assertEquals("PENDING", requestStatus(pending));
+        assertEquals(1, confirmedRequests(eventId));
+    }
+
+    @Test
+    void rejectionDoesNotTakeSeats() throws Exception {
+        long initiatorId = createUser();
+        long eventId = createPublishedEvent(initiatorId, createCategory(), 1, true).getId();
+        long first = requestService.createRequest(createUser(), eventId).getId();
+        long second = requestService.createRequest(createUser(), eventId).getId();
+
+        mockMvc.perform(patch("/users/{userId}/events/{eventId}/requests", initiatorId, eventId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"requestIds\":[%d],\"status\":\"REJECTED\"}".formatted(first)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.confirmedRequests.length()").value(0))
+                .andExpect(jsonPath("$.rejectedRequests.length()").value(1))
+                .andExpect(jsonPath("$.rejectedRequests[0].status").value("REJECTED"));
+
+        assertEquals(0, confirmedRequests(eventId));
+        assertEquals("PENDING", requestStatus(second));
+    }
+
+    private String requestStatus(long requestId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM requests WHERE id = ?", String.class, requestId);
+    }
+
+    private int confirmedRequests(long eventId) {
+        return jdbcTemplate.queryForObject("SELECT confirmed_request FROM events WHERE id = ?", Integer.class,
+                eventId);
+    }
+}
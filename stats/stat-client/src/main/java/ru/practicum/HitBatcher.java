@@ -0,0 +1,216 @@
+package ru.practicum;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Ограниченная очередь hit с фоновой отправкой пачками.
+ * При переполнении очереди новые hit отбрасываются и учитываются в счётчике dropped.
+ * Пока stat-server недоступен (available возвращает false), hit копятся в очереди, а не теряются при отправке.
+ * Пачка, которую не удалось отправить, возвращается в очередь, пока в ней есть место, и отправляется повторно
+ * при следующем сбросе. При остановке оставшиеся hit отправляются один раз независимо от available.
+ */
+@Slf4j
+class HitBatcher implements AutoCloseable {
+    private final BlockingQueue<EndpointHitDto> queue;
+    private final int flushSize;
+    private final Duration shutdownTimeout;
+    private final Duration readFlushTimeout;
+    private final Consumer<List<EndpointHitDto>> sender;
+    private final BooleanSupplier available;
+    private final ScheduledExecutorService executor;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    HitBatcher(StatClientProperties.Hits properties, Consumer<List<EndpointHitDto>> sender,
+               BooleanSupplier available) {
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.flushSize = properties.getFlushSize();
+        this.shutdownTimeout = properties.getShutdownTimeout();
+        this.readFlushTimeout = properties.getReadFlushTimeout();
+        this.sender = sender;
+        this.available = available;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stat-hit-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = properties.getFlushInterval().toMillis();
+        executor.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    boolean offer(EndpointHitDto hit) {
+        if (executor.isShutdown()) {
+            dropped.incrementAndGet();
+            log.warn("Очередь hit остановлена, hit отброшен: {}", hit.getUri());
+            return false;
+        }
+        if (!queue.offer(hit)) {
+            dropped.incrementAndGet();
+            log.warn("Очередь hit переполнена, hit отброшен: {}", hit.getUri());
+            return false;
+        }
+        accepted.incrementAndGet();
+        if (queue.size() >= flushSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> {
+                    flushRequested.set(false);
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                // очередь останавливается: оставшиеся hit отправит close()
+                flushRequested.set(false);
+            }
+        }
+        return true;
+    }
+
+    void flush() {
+        flush(false);
+    }
+
+    /**
+     * Отправляет очередь пачками. После первой неудачной пачки сброс прекращается до следующего вызова.
+     *
+     * @param force отправлять, даже если available возвращает false; неудачные пачки в очередь не возвращаются
+     */
+    private void flush(boolean force) {
+        flushLock.lock();
+        try {
+            List<EndpointHitDto> batch = new ArrayList<>(flushSize);
+            while ((force || available.getAsBoolean()) && queue.drainTo(batch, flushSize) > 0) {
+                boolean success = send(batch, !force);
+                batch.clear();
+                if (!success) {
+                    break;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Отправляет очередь, если в ней или в отправляемой сейчас пачке могут быть hit по указанным uri,
+     * и ждёт отправки не дольше read-flush-timeout. Если отправка не успела завершиться, чтение продолжается
+     * без неё, а пачка отправляется в фоне.
+     */
+    void flushPending(Collection<String> uris) {
+        boolean pending = flushLock.isLocked();
+        if (!pending) {
+            if (uris == null || uris.isEmpty()) {
+                pending = !queue.isEmpty();
+            } else {
+                Set<String> uriSet = new HashSet<>(uris);
+                pending = queue.stream().anyMatch(hit -> uriSet.contains(hit.getUri()));
+            }
+        }
+        if (!pending) {
+            return;
+        }
+        try {
+            executor.submit(this::flush).get(readFlushTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | RejectedExecutionException e) {
+            log.debug("Отправка hit перед чтением статистики не завершилась: {}", e.toString());
+        } catch (ExecutionException e) {
+            log.warn("Ошибка при отправке hit перед чтением статистики", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    long accepted() {
+        return accepted.get();
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    long sent() {
+        return sent.get();
+    }
+
+    long failed() {
+        return failed.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // последняя попытка: circuit breaker может быть открыт, но при остановке hit иначе будут потеряны
+        flush(true);
+        if (!queue.isEmpty()) {
+            log.warn("При остановке не отправлено {} hit", queue.size());
+        }
+        log.info("Очередь hit остановлена: отправлено {}, отброшено {}, ошибок {}, не отправлено {}",
+                sent(), dropped(), failed(), size());
+    }
+
+    private boolean send(List<EndpointHitDto> batch, boolean requeue) {
+        try {
+            sender.accept(batch);
+            sent.addAndGet(batch.size());
+            return true;
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.error("Ошибка при отправке {} hit в stat-server", batch.size(), e);
+            if (requeue) {
+                requeue(batch);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Возвращает пачку в очередь; hit, для которых не хватило места, отбрасываются.
+     */
+    private void requeue(List<EndpointHitDto> batch) {
+        int lost = 0;
+        for (EndpointHitDto hit : batch) {
+            if (!queue.offer(hit)) {
+                lost++;
+            }
+        }
+        if (lost > 0) {
+            dropped.addAndGet(lost);
+            log.warn("Очередь hit переполнена, {} hit из неотправленной пачки отброшено", lost);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package ru.practicum;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker и bulkhead для вызовов stat-server.
+ * После failure-threshold ошибок подряд вызовы отклоняются на open-duration, затем пропускается один пробный вызов.
+ * Открытый circuit проверяется до bulkhead, поэтому отклонённые вызовы не занимают слоты.
+ * <p>
+ * Ответ 4xx означает, что stat-server доступен и ответил: такой вызов сбрасывает счётчик ошибок и закрывает
+ * circuit после пробного вызова, но учитывается отдельно от успешных (client_error). Исключения — 408 и 429:
+ * это признаки перегрузки сервера, они считаются ошибками.
+ */
+@Slf4j
+class StatCallGuard implements AutoCloseable {
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final Semaphore permits;
+    private final Duration maxWait;
+    private final Duration hedgeDelay;
+    private final ExecutorService hedgeExecutor;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong clientErrors = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong notPermitted = new AtomicLong();
+    private final AtomicLong bulkheadFull = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+
+    StatCallGuard(StatClientProperties properties) {
+        this.failureThreshold = properties.getCircuitBreaker().getFailureThreshold();
+        this.openDurationNanos = properties.getCircuitBreaker().getOpenDuration().toNanos();
+        this.permits = new Semaphore(properties.getBulkhead().getMaxConcurrentCalls());
+        this.maxWait = properties.getBulkhead().getMaxWait();
+        if (properties.getHedging().isEnabled()) {
+            this.hedgeDelay = properties.getHedging().getDelay();
+            this.hedgeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            this.hedgeDelay = null;
+            this.hedgeExecutor = null;
+        }
+    }
+
+    <T> T call(Supplier<T> request) {
+        State admitted = acquireCircuit();
+        if (admitted == null) {
+            notPermitted.incrementAndGet();
+            throw new StatServerUnavailableException("Circuit breaker stat-server открыт");
+        }
+        boolean trial = admitted == State.HALF_OPEN;
+        try {
+            acquirePermit();
+        } catch (RuntimeException e) {
+            if (trial) {
+                releaseTrial();
+            }
+            throw e;
+        }
+        try {
+            T result = request.get();
+            onSuccess();
+            return result;
+        } catch (HttpClientErrorException e) {
+            if (isOverloaded(e)) {
+                onFailure(e);
+            } else {
+                onClientError();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                // попытка отменена, потому что ответил другой hedged-запрос: о состоянии сервера она ничего не говорит
+                cancelled.incrementAndGet();
+                if (trial) {
+                    releaseTrial();
+                }
+            } else {
+                onFailure(e);
+            }
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Как call, но если включено hedging и ответ не пришёл за delay, отправляет второй такой же запрос.
+     * Как только одна из попыток вернула результат, вторая отменяется с прерыванием потока.
+     * Только для идемпотентных запросов.
+     */
+    <T> T callHedged(Supplier<T> request) {
+        if (hedgeExecutor == null) {
+            return call(request);
+        }
+        CompletionService<T> attempts = new ExecutorCompletionService<>(hedgeExecutor);
+        Future<T> primary = attempts.submit(() -> call(request));
+        Future<T> backup = null;
+        try {
+            Future<T> done = attempts.poll(hedgeDelay.toNanos(), TimeUnit.NANOSECONDS);
+            if (done == null) {
+                hedged.incrementAndGet();
+                backup = attempts.submit(() -> call(request));
+                done = attempts.take();
+                if (isFailed(done)) {
+                    done = attempts.take();
+                }
+            }
+            return done.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StatServerUnavailableException("Ожидание ответа stat-server прервано");
+        } finally {
+            primary.cancel(true);
+            if (backup != null) {
+                backup.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Можно ли сейчас обращаться к stat-server: circuit breaker закрыт или пора сделать пробный вызов.
+     */
+    boolean isCallPermitted() {
+        State current = state.get();
+        return current == State.CLOSED || current == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos;
+    }
+
+    State state() {
+        return state.get();
+    }
+
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    long succeeded() {
+        return succeeded.get();
+    }
+
+    long failed() {
+        return failed.get();
+    }
+
+    long clientErrors() {
+        return clientErrors.get();
+    }
+
+    long cancelled() {
+        return cancelled.get();
+    }
+
+    long notPermitted() {
+        return notPermitted.get();
+    }
+
+    long bulkheadFull() {
+        return bulkheadFull.get();
+    }
+
+    long hedged() {
+        return hedged.get();
+    }
+
+    @Override
+    public void close() {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdownNow();
+        }
+    }
+
+    private void acquirePermit() {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StatServerUnavailableException("Ожидание вызова stat-server прервано");
+        }
+        if (!acquired) {
+            bulkheadFull.incrementAndGet();
+            throw new StatServerUnavailableException("Превышено число одновременных вызовов stat-server");
+        }
+    }
+
+    /**
+     * Возвращает состояние, в котором вызов допущен (CLOSED или HALF_OPEN для пробного вызова), или null.
+     */
+    private State acquireCircuit() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return State.CLOSED;
+        }
+        if (current == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("Circuit breaker stat-server: пробный вызов");
+            return State.HALF_OPEN;
+        }
+        return null;
+    }
+
+    /**
+     * Возвращает circuit в OPEN, если пробный вызов так и не дошёл до сервера; openedAt не меняется,
+     * поэтому следующий вызов снова станет пробным.
+     */
+    private void releaseTrial() {
+        if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+            log.info("Circuit breaker stat-server: пробный вызов не выполнен");
+        }
+    }
+
+    private void onSuccess() {
+        succeeded.incrementAndGet();
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("Circuit breaker stat-server закрыт");
+        }
+    }
+
+    private void onClientError() {
+        clientErrors.incrementAndGet();
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.CLOSED) != State.CLOSED) {
+            log.info("Circuit breaker stat-server закрыт");
+        }
+    }
+
+    private void onFailure(RuntimeException e) {
+        failed.incrementAndGet();
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openedAt = System.nanoTime();
+            if (state.getAndSet(State.OPEN) != State.OPEN) {
+                log.warn("Circuit breaker stat-server открыт на {} мс после ошибки: {}",
+                        TimeUnit.NANOSECONDS.toMillis(openDurationNanos), e.toString());
+            }
+        }
+    }
+
+    private static boolean isOverloaded(HttpClientErrorException e) {
+        return e.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)
+                || e.getStatusCode().isSameCodeAs(HttpStatus.REQUEST_TIMEOUT);
+    }
+
+    private static boolean isFailed(Future<?> attempt) {
+        return attempt.state() == Future.State.FAILED;
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+}
@@ -1,74 +1,229 @@
 package ru.practicum;
 
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
-import org.springframework.web.util.UriComponentsBuilder;
-import org.springframework.http.HttpStatusCode;
+import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import java.net.URI;
+import java.net.http.HttpClient;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToDoubleFunction;
 
 @Slf4j
 @Component
 public class StatClient {
+    private static final String STATS_URI = "/stats?start={start}&end={end}&unique={unique}";
+    private static final String STATS_BY_URIS_URI = "/stats?start={start}&end={end}&uris={uris}&unique={unique}";
+    private static final String EVENT_STATS_URI = "/stats/events?start={start}&end={end}&unique={unique}";
+
+    private final HttpClient httpClient;
+    private final ExecutorService httpExecutor;
     private final RestClient restClient;
-    private final String baseUrl;
+    private final URI hitUri;
+    private final URI hitsBatchUri;
+    private final MediaType mediaType;
+    private final HitBatcher hitBatcher;
+    private final StatCallGuard guard;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String EVENT_URI = "/events/";
 
-    public StatClient(@Value("${stat-server.url}") String baseUrl) {
-        this.baseUrl = baseUrl;
-        this.restClient = RestClient.builder()
-                .baseUrl(baseUrl)
-                .build();
+    public StatClient(StatClientProperties properties, ObjectProvider<MeterRegistry> meterRegistry,
+                      @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        DefaultUriBuilderFactory uriFactory = new DefaultUriBuilderFactory(properties.getUrl());
+        this.hitUri = uriFactory.expand("/hit");
+        this.hitsBatchUri = uriFactory.expand("/hits/batch");
+        this.httpExecutor = virtualThreads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.httpClient = buildHttpClient(properties, httpExecutor);
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(properties.getReadTimeout());
+        RestClient.Builder restClientBuilder = RestClient.builder()
+                .uriBuilderFactory(uriFactory)
+                .requestFactory(requestFactory);
+        if (properties.getTransport().isBinary()) {
+            this.mediaType = MediaType.valueOf(StatMediaType.APPLICATION_SMILE_VALUE);
+            restClientBuilder.messageConverters(converters -> converters.add(0, smileConverter()));
+        } else {
+            this.mediaType = MediaType.APPLICATION_JSON;
+        }
+        this.restClient = restClientBuilder.build();
+        this.guard = new StatCallGuard(properties);
+        if (properties.getHits().isAsync()) {
+            this.hitBatcher = new HitBatcher(properties.getHits(), this::sendHits, guard::isCallPermitted);
+        } else {
+            this.hitBatcher = null;
+        }
+        meterRegistry.ifAvailable(this::registerMetrics);
     }
 
     public void createHit(EndpointHitDto hitDto) {
-        String uri = UriComponentsBuilder.fromHttpUrl(baseUrl)
-                .path("/hit")
-                .build()
-                .toUriString();
-        log.info("POST to URI: {}", uri);
-
-        restClient.post()
-                .uri(uri)
-                .contentType(MediaType.APPLICATION_JSON)
+        if (hitBatcher != null) {
+            hitBatcher.offer(hitDto);
+            return;
+        }
+        try {
+            sendHit(hitDto);
+        } catch (RuntimeException e) {
+            log.warn("hit {} не отправлен в stat-server: {}", hitDto.getUri(), e.toString());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (hitBatcher != null) {
+            hitBatcher.close();
+        }
+        guard.close();
+        httpClient.close();
+        if (httpExecutor != null) {
+            httpExecutor.close();
+        }
+    }
+
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        if (hitBatcher != null) {
+            hitBatcher.flushPending(uris);
+        }
+        log.info("GET stats: {}, {}, {}, {}", start, end, uris, unique);
+
+        boolean byUris = uris != null && !uris.isEmpty();
+        // stat-server разбирает uris, разделённые запятыми, в список
+        Object[] params = byUris
+                ? new Object[]{FORMATTER.format(start), FORMATTER.format(end), String.join(",", uris), unique}
+                : new Object[]{FORMATTER.format(start), FORMATTER.format(end), unique};
+        return guard.callHedged(() -> restClient.get()
+                .uri(byUris ? STATS_BY_URIS_URI : STATS_URI, params)
+                .accept(mediaType)
+                .retrieve()
+                .body(new ParameterizedTypeReference<>() {
+                }));
+    }
+
+    /**
+     * Количество просмотров событий по их id; события без просмотров в результат не попадают.
+     * При пустом eventIds возвращаются все события, у которых есть просмотры.
+     */
+    public Map<Long, Long> getEventStats(LocalDateTime start, LocalDateTime end, Collection<? extends Long> eventIds,
+                                         boolean unique) {
+        if (hitBatcher != null) {
+            hitBatcher.flushPending(eventIds.stream()
+                    .map(id -> EVENT_URI + id)
+                    .toList());
+        }
+        log.info("POST event stats: {}, {}, {} events, {}", start, end, eventIds.size(), unique);
+
+        return guard.callHedged(() -> restClient.post()
+                .uri(EVENT_STATS_URI, FORMATTER.format(start), FORMATTER.format(end), unique)
+                .contentType(mediaType)
+                .accept(mediaType)
+                .body(eventIds)
+                .retrieve()
+                .body(new ParameterizedTypeReference<>() {
+                }));
+    }
+
+    private void sendHits(List<EndpointHitDto> hits) {
+        log.debug("POST {} hits to URI: {}", hits.size(), hitsBatchUri);
+
+        HitBatchResult result = guard.call(() -> restClient.post()
+                .uri(hitsBatchUri)
+                .contentType(mediaType)
+                .accept(mediaType)
+                .body(hits)
+                .retrieve()
+                .body(HitBatchResult.class));
+        if (result != null && result.getRejected() > 0) {
+            log.warn("stat-server отклонил {} из {} hit", result.getRejected(), hits.size());
+        }
+    }
+
+    private void sendHit(EndpointHitDto hitDto) {
+        log.info("POST to URI: {}", hitUri);
+
+        guard.call(() -> restClient.post()
+                .uri(hitUri)
+                .contentType(mediaType)
                 .body(hitDto)
                 .retrieve()
-                .toBodilessEntity();
+                .toBodilessEntity());
     }
 
-    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
-        String fullUri = UriComponentsBuilder.fromHttpUrl(baseUrl)
-                .path("/stats")
-                .queryParam("start", FORMATTER.format(start))
-                .queryParam("end", FORMATTER.format(end))
-                .queryParam("uris", uris)
-                .queryParam("unique", unique)
-                .toUriString();
+    private static HttpClient buildHttpClient(StatClientProperties properties, ExecutorService executor) {
+        HttpClient.Builder httpClient = HttpClient.newBuilder()
+                .version(properties.getTransport().getVersion())
+                .connectTimeout(properties.getConnectTimeout());
+        if (executor != null) {
+            httpClient.executor(executor);
+        }
+        return httpClient.build();
+    }
 
-        log.info("GET request to URI: {}", fullUri);
+    private static MappingJackson2SmileHttpMessageConverter smileConverter() {
+        // повторяющиеся app и uri в пачке hit кодируются ссылками на первое вхождение
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(Jackson2ObjectMapperBuilder.smile()
+                .factory(factory)
+                .build());
+    }
 
-        try {
-            return restClient.get()
-                    .uri(fullUri)
-                    .retrieve()
-                    .onStatus(HttpStatusCode::is4xxClientError, (req, res) -> {
-                        throw new RuntimeException("Client error: " + res.getStatusCode());
-                    })
-                    .onStatus(HttpStatusCode::is5xxServerError, (req, res) -> {
-                        throw new RuntimeException("Server error: " + res.getStatusCode());
-                    })
-                    .body(new ParameterizedTypeReference<>() {
-                    });
-
-        } catch (Exception e) {
-            log.error("Error while getting stats", e);
-            return List.of();
+    private void registerMetrics(MeterRegistry registry) {
+        Gauge.builder("stat.client.circuit.state", guard, g -> g.state().ordinal())
+                .description("Состояние circuit breaker stat-server: 0 — закрыт, 1 — открыт, 2 — пробный вызов")
+                .register(registry);
+        Gauge.builder("stat.client.bulkhead.available", guard, StatCallGuard::availablePermits)
+                .description("Количество свободных слотов для одновременных вызовов stat-server")
+                .register(registry);
+        registerCallCounter(registry, "success", StatCallGuard::succeeded);
+        registerCallCounter(registry, "failure", StatCallGuard::failed);
+        registerCallCounter(registry, "client_error", StatCallGuard::clientErrors);
+        registerCallCounter(registry, "cancelled", StatCallGuard::cancelled);
+        registerCallCounter(registry, "not_permitted", StatCallGuard::notPermitted);
+        registerCallCounter(registry, "bulkhead_full", StatCallGuard::bulkheadFull);
+        FunctionCounter.builder("stat.client.calls.hedged", guard, StatCallGuard::hedged)
+                .description("Количество повторных (hedged) запросов статистики")
+                .register(registry);
+        if (hitBatcher == null) {
+            return;
         }
+        Gauge.builder("stat.client.hits.queued", hitBatcher, HitBatcher::size)
+                .description("Количество hit, ожидающих отправки в stat-server")
+                .register(registry);
+        registerHitCounter(registry, "accepted", HitBatcher::accepted);
+        registerHitCounter(registry, "dropped", HitBatcher::dropped);
+        registerHitCounter(registry, "sent", HitBatcher::sent);
+        registerHitCounter(registry, "failed", HitBatcher::failed);
+    }
+
+    private void registerCallCounter(MeterRegistry registry, String result, ToDoubleFunction<StatCallGuard> count) {
+        FunctionCounter.builder("stat.client.calls", guard, count)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private void registerHitCounter(MeterRegistry registry, String result, ToDoubleFunction<HitBatcher> count) {
+        FunctionCounter.builder("stat.client.hits", hitBatcher, count)
+                .tag("result", result)
+                .register(registry);
     }
 }
\ No newline at end of file
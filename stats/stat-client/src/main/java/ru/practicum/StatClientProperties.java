@@ -0,0 +1,88 @@
+package ru.practicum;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "stat-server")
+public class StatClientProperties {
+    private String url;
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    private Duration readTimeout = Duration.ofSeconds(2);
+    private final Transport transport = new Transport();
+    private final Hits hits = new Hits();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private final Bulkhead bulkhead = new Bulkhead();
+    private final Hedging hedging = new Hedging();
+
+    @Getter
+    @Setter
+    public static class Hits {
+        /**
+         * Отправлять hit в фоне пачками вместо блокирующего POST на каждый запрос.
+         */
+        private boolean async = false;
+        private int queueCapacity = 10_000;
+        private int flushSize = 500;
+        private Duration flushInterval = Duration.ofMillis(200);
+        private Duration shutdownTimeout = Duration.ofSeconds(5);
+        /**
+         * Сколько чтение статистики ждёт отправки накопленных hit по запрошенным uri.
+         */
+        private Duration readFlushTimeout = Duration.ofMillis(200);
+    }
+
+    /**
+     * Соединения переиспользуются пулом JDK HttpClient с настройками по умолчанию.
+     * Число одновременно занятых соединений ограничено bulkhead.max-concurrent-calls.
+     */
+    @Getter
+    @Setter
+    public static class Transport {
+        /**
+         * HTTP_2 по http:// согласуется через Upgrade: h2c; если stat-server его не поддерживает, остаётся HTTP/1.1.
+         */
+        private HttpClient.Version version = HttpClient.Version.HTTP_1_1;
+        /**
+         * Передавать hit и статистику в формате Smile вместо JSON.
+         */
+        private boolean binary = false;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        /**
+         * Число ошибок подряд, после которого вызовы stat-server отклоняются без обращения к сети.
+         */
+        private int failureThreshold = 5;
+        /**
+         * Время до пробного вызова после открытия.
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Bulkhead {
+        private int maxConcurrentCalls = 32;
+        private Duration maxWait = Duration.ofMillis(100);
+    }
+
+    @Getter
+    @Setter
+    public static class Hedging {
+        /**
+         * Повторять запрос статистики, если первый не ответил за delay; используется первый успешный ответ.
+         */
+        private boolean enabled = false;
+        private Duration delay = Duration.ofMillis(300);
+    }
+}
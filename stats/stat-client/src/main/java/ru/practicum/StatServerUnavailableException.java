@@ -0,0 +1,10 @@
+package ru.practicum;
+
+/**
+ * Вызов stat-server отклонён без обращения к сети: открыт circuit breaker или исчерпан bulkhead.
+ */
+public class StatServerUnavailableException extends RuntimeException {
+    public StatServerUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum;
+
+/**
+ * Типы содержимого, которыми обмениваются StatClient и stat-server.
+ */
+public final class StatMediaType {
+    /**
+     * Бинарный JSON (Jackson Smile) с общими ссылками на повторяющиеся имена полей и строки.
+     */
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    private StatMediaType() {
+    }
+}
@@ -1,9 +1,14 @@
 package ru.practicum.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,14 +16,22 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.EndpointHitDto;
+import ru.practicum.HitBatchResult;
+import ru.practicum.StatMediaType;
 import ru.practicum.ViewStats;
 import ru.practicum.service.StatService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -27,6 +40,7 @@ public class StatController {
     private static final String DATE_TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
 
     private final StatService statService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -35,19 +49,85 @@ public class StatController {
         statService.createHit(endpointHitDto);
     }
 
+    @PostMapping(value = "/hits/batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, StatMediaType.APPLICATION_SMILE_VALUE})
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResult createHits(@RequestBody List<JsonNode> body) {
+        // элементы разбираются по одному, чтобы некорректный hit отклонялся, а не ломал всю пачку, как и в NDJSON
+        List<EndpointHitDto> hits = body.stream()
+                .map(this::toHit)
+                .toList();
+        log.info("Запрос в stat-server на создание пачки из {} hit", hits.size());
+        return statService.createHits(hits);
+    }
+
+    @PostMapping(value = "/hits/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public HitBatchResult createHitsNdjson(InputStream body) throws IOException {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    hits.add(toHit(line));
+                }
+            }
+        }
+        log.info("Запрос в stat-server на создание пачки из {} hit (NDJSON)", hits.size());
+        return statService.createHits(hits);
+    }
+
     @GetMapping("/stats")
     public List<ViewStats> getStats(@RequestParam String start,
                                     @RequestParam String end,
                                     @RequestParam(required = false) List<String> uris,
-                                    @RequestParam(required = false) boolean unique) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(DATE_TIME_PATTERN);
-        String decodedStart = URLDecoder.decode(start, StandardCharsets.UTF_8);
-        String decodedEnd = URLDecoder.decode(end, StandardCharsets.UTF_8);
+                                    @RequestParam(required = false) boolean unique,
+                                    @RequestParam(defaultValue = "exact") String precision) {
+        LocalDateTime parsedStart = parseDateTime(start);
+        LocalDateTime parsedEnd = parseDateTime(end);
+
+        boolean approximate = switch (precision.toLowerCase()) {
+            case "exact" -> false;
+            case "approx" -> true;
+            default -> throw new ValidationException("precision должен быть либо exact, либо approx");
+        };
 
-        LocalDateTime parsedStart = LocalDateTime.parse(decodedStart, formatter);
-        LocalDateTime parsedEnd = LocalDateTime.parse(decodedEnd, formatter);
+        log.info("Запрос в stat-server на получение ViewStats. Параметры: {}, {}, {}, {}, {}",
+                start, end, uris, unique, precision);
+        return statService.getStats(parsedStart, parsedEnd, uris, unique, approximate);
+    }
+
+    @PostMapping(value = "/stats/events",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, StatMediaType.APPLICATION_SMILE_VALUE})
+    public Map<Long, Long> getEventStats(@RequestParam String start,
+                                         @RequestParam String end,
+                                         @RequestParam(required = false) boolean unique,
+                                         @RequestBody List<Long> eventIds) {
+        log.info("Запрос в stat-server на получение просмотров {} событий. Параметры: {}, {}, {}",
+                eventIds.size(), start, end, unique);
+        return statService.getEventHits(parseDateTime(start), parseDateTime(end), eventIds, unique);
+    }
+
+    private LocalDateTime parseDateTime(String value) {
+        return LocalDateTime.parse(URLDecoder.decode(value, StandardCharsets.UTF_8),
+                DateTimeFormatter.ofPattern(DATE_TIME_PATTERN));
+    }
+
+    private EndpointHitDto toHit(String line) {
+        try {
+            return objectMapper.readValue(line, EndpointHitDto.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Некорректная строка NDJSON отклонена: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
 
-        log.info("Запрос в stat-server на получение ViewStats. Параметры: {}, {}, {}, {}", start, end, uris, unique);
-        return statService.getStats(parsedStart, parsedEnd, uris, unique);
+    private EndpointHitDto toHit(JsonNode node) {
+        try {
+            return objectMapper.treeToValue(node, EndpointHitDto.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Некорректный hit в пачке отклонён: {}", e.getOriginalMessage());
+            return null;
+        }
     }
-}
\ No newline at end of file
+}
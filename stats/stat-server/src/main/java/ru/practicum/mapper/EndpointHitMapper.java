@@ -3,12 +3,17 @@ package ru.practicum.mapper;
 import ru.practicum.EndpointHitDto;
 import ru.practicum.model.EndpointHit;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class EndpointHitMapper {
+    private static final Pattern EVENT_URI = Pattern.compile("/events/(\\d{1,18})");
 
     public static EndpointHit toEndpointHit(EndpointHitDto dto) {
         return EndpointHit.builder()
                 .app(dto.getApp())
                 .uri(dto.getUri())
+                .entityId(toEventId(dto.getUri()))
                 .ip(dto.getIp())
                 .timestamp(dto.getTimestamp())
                 .build();
@@ -22,4 +27,15 @@ public class EndpointHitMapper {
                 .timestamp(endpointHit.getTimestamp())
                 .build();
     }
+
+    /**
+     * Id события для uri вида /events/{id}, для остальных uri — null.
+     */
+    public static Long toEventId(String uri) {
+        if (uri == null) {
+            return null;
+        }
+        Matcher matcher = EVENT_URI.matcher(uri);
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : null;
+    }
 }
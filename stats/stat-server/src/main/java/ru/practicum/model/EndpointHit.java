@@ -28,6 +28,8 @@ public class EndpointHit {
     private String app;
     @Column(name = "uri", nullable = false)
     private String uri;
+    @Column(name = "entity_id")
+    private Long entityId;
     @Column(name = "ip", nullable = false)
     private String ip;
     @Column(name = "timestamp", nullable = false)
@@ -0,0 +1,19 @@
+package ru.practicum.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class HitRollup {
+    private String app;
+    private String uri;
+    private LocalDateTime bucketStart;
+    private Long hits;
+}
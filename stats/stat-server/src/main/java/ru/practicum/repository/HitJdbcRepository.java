@@ -0,0 +1,108 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ViewStats;
+import ru.practicum.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class HitJdbcRepository {
+    private static final String INSERT_HIT =
+            "INSERT INTO hits (app, uri, entity_id, ip, timestamp) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${stat-server.ingest.batch-size:1000}")
+    private int batchSize;
+
+    public void saveAll(List<EndpointHit> hits) {
+        jdbcTemplate.batchUpdate(INSERT_HIT, hits, batchSize, (ps, hit) -> {
+            ps.setString(1, hit.getApp());
+            ps.setString(2, hit.getUri());
+            ps.setObject(3, hit.getEntityId(), Types.BIGINT);
+            ps.setString(4, hit.getIp());
+            ps.setTimestamp(5, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    public List<ViewStats> countHits(LocalDateTime from, LocalDateTime to, boolean includeTo, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        StringBuilder sql = new StringBuilder("""
+                SELECT app, uri, COUNT(*) AS hits
+                FROM hits
+                WHERE timestamp >= :from
+                """);
+        sql.append(includeTo ? " AND timestamp <= :to" : " AND timestamp < :to");
+        if (uris != null && !uris.isEmpty()) {
+            sql.append(" AND uri IN (:uris)");
+            params.addValue("uris", uris);
+        }
+        sql.append(" GROUP BY app, uri");
+        return namedParameterJdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    /**
+     * Количество hit по id событий; при пустом eventIds — по всем событиям, у которых есть hit.
+     */
+    public Map<Long, Long> countEventHits(LocalDateTime start, LocalDateTime end, List<Long> eventIds,
+                                          boolean unique) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end));
+        StringBuilder sql = new StringBuilder("""
+                SELECT entity_id, %s AS hits
+                FROM hits
+                WHERE entity_id IS NOT NULL AND timestamp BETWEEN :start AND :end
+                """.formatted(unique ? "COUNT(DISTINCT ip)" : "COUNT(*)"));
+        if (!eventIds.isEmpty()) {
+            // массив вместо списка параметров: текст запроса не зависит от числа id
+            sql.append(" AND entity_id = ANY (:ids)");
+            params.addValue("ids", new SqlArrayValue("bigint", eventIds.toArray()));
+        }
+        sql.append(" GROUP BY entity_id");
+        Map<Long, Long> hits = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql.toString(), params, rs -> {
+            hits.put(rs.getLong("entity_id"), rs.getLong("hits"));
+        });
+        return hits;
+    }
+
+    public List<EndpointHit> findDistinctIps(LocalDateTime from, LocalDateTime to, boolean includeTo,
+                                             List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        StringBuilder sql = new StringBuilder("""
+                SELECT DISTINCT app, uri, ip
+                FROM hits
+                WHERE timestamp >= :from
+                """);
+        sql.append(includeTo ? " AND timestamp <= :to" : " AND timestamp < :to");
+        if (uris != null && !uris.isEmpty()) {
+            sql.append(" AND uri IN (:uris)");
+            params.addValue("uris", uris);
+        }
+        return namedParameterJdbcTemplate.query(sql.toString(), params, (rs, rowNum) -> EndpointHit.builder()
+                .app(rs.getString("app"))
+                .uri(rs.getString("uri"))
+                .ip(rs.getString("ip"))
+                .build());
+    }
+}
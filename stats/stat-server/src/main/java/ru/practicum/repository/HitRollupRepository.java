@@ -0,0 +1,53 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ViewStats;
+import ru.practicum.model.HitRollup;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class HitRollupRepository {
+    private static final String UPSERT_ROLLUP = """
+            INSERT INTO hit_rollups (app, uri, bucket_start, hits)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (uri, app, bucket_start) DO UPDATE SET hits = hit_rollups.hits + EXCLUDED.hits
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public void increment(List<HitRollup> rollups) {
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP, rollups, rollups.size(), (ps, rollup) -> {
+            ps.setString(1, rollup.getApp());
+            ps.setString(2, rollup.getUri());
+            ps.setTimestamp(3, Timestamp.valueOf(rollup.getBucketStart()));
+            ps.setLong(4, rollup.getHits());
+        });
+    }
+
+    public List<ViewStats> sumHits(LocalDateTime bucketsFrom, LocalDateTime bucketsTo, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(bucketsFrom))
+                .addValue("to", Timestamp.valueOf(bucketsTo));
+        StringBuilder sql = new StringBuilder("""
+                SELECT app, uri, SUM(hits) AS hits
+                FROM hit_rollups
+                WHERE bucket_start >= :from AND bucket_start < :to
+                """);
+        if (uris != null && !uris.isEmpty()) {
+            sql.append(" AND uri IN (:uris)");
+            params.addValue("uris", uris);
+        }
+        sql.append(" GROUP BY app, uri");
+        return namedParameterJdbcTemplate.query(sql.toString(), params,
+                (rs, rowNum) -> new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+}
@@ -0,0 +1,103 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.SqlArrayValue;
+import org.springframework.stereotype.Repository;
+import ru.practicum.model.HitSketch;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class HitSketchRepository {
+    private static final String INSERT_SKETCH = """
+            INSERT INTO hit_sketches (app, uri, bucket_start, registers)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (uri, app, bucket_start) DO NOTHING
+            """;
+    private static final String UPDATE_SKETCH = """
+            UPDATE hit_sketches SET registers = ?
+            WHERE uri = ? AND app = ? AND bucket_start = ?
+            """;
+    private static final RowMapper<HitSketch> SKETCH_MAPPER = (rs, rowNum) -> HitSketch.builder()
+            .app(rs.getString("app"))
+            .uri(rs.getString("uri"))
+            .bucketStart(rs.getTimestamp("bucket_start").toLocalDateTime())
+            .registers(rs.getBytes("registers"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Начало первой корзины, для которой скетч содержит все hit; пустой результат — скетчи есть для всех корзин.
+     */
+    public Optional<LocalDateTime> findCoveredFrom() {
+        return jdbcTemplate.query("SELECT covered_from FROM hit_sketches_coverage WHERE covered_from IS NOT NULL",
+                        (rs, rowNum) -> rs.getTimestamp("covered_from").toLocalDateTime())
+                .stream()
+                .findFirst();
+    }
+
+    public void insertMissing(List<HitSketch> sketches) {
+        jdbcTemplate.batchUpdate(INSERT_SKETCH, sketches, sketches.size(), (ps, sketch) -> {
+            ps.setString(1, sketch.getApp());
+            ps.setString(2, sketch.getUri());
+            ps.setTimestamp(3, Timestamp.valueOf(sketch.getBucketStart()));
+            ps.setBytes(4, sketch.getRegisters());
+        });
+    }
+
+    public List<HitSketch> findForUpdate(List<HitSketch> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        // массивы вместо списка кортежей: число параметров не зависит от числа ключей
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("uris", new SqlArrayValue("varchar", keys.stream().map(HitSketch::getUri).toArray()))
+                .addValue("apps", new SqlArrayValue("varchar", keys.stream().map(HitSketch::getApp).toArray()))
+                .addValue("buckets", new SqlArrayValue("timestamp", keys.stream()
+                        .map(key -> Timestamp.valueOf(key.getBucketStart()))
+                        .toArray()));
+        return namedParameterJdbcTemplate.query("""
+                SELECT s.app, s.uri, s.bucket_start, s.registers
+                FROM hit_sketches s
+                JOIN unnest(:uris, :apps, :buckets) AS k(uri, app, bucket_start)
+                    ON s.uri = k.uri AND s.app = k.app AND s.bucket_start = k.bucket_start
+                ORDER BY s.uri, s.app, s.bucket_start
+                FOR UPDATE OF s
+                """, params, SKETCH_MAPPER);
+    }
+
+    public void update(List<HitSketch> sketches) {
+        jdbcTemplate.batchUpdate(UPDATE_SKETCH, sketches, sketches.size(), (ps, sketch) -> {
+            ps.setBytes(1, sketch.getRegisters());
+            ps.setString(2, sketch.getUri());
+            ps.setString(3, sketch.getApp());
+            ps.setTimestamp(4, Timestamp.valueOf(sketch.getBucketStart()));
+        });
+    }
+
+    public List<HitSketch> findSketches(LocalDateTime bucketsFrom, LocalDateTime bucketsTo, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(bucketsFrom))
+                .addValue("to", Timestamp.valueOf(bucketsTo));
+        StringBuilder sql = new StringBuilder("""
+                SELECT app, uri, bucket_start, registers
+                FROM hit_sketches
+                WHERE bucket_start >= :from AND bucket_start < :to
+                """);
+        if (uris != null && !uris.isEmpty()) {
+            sql.append(" AND uri IN (:uris)");
+            params.addValue("uris", uris);
+        }
+        return namedParameterJdbcTemplate.query(sql.toString(), params, SKETCH_MAPPER);
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Границы часовых корзин, по которым ведутся агрегаты hit_rollups.
+ */
+final class HitBuckets {
+
+    private HitBuckets() {
+    }
+
+    static LocalDateTime floor(LocalDateTime timestamp) {
+        return timestamp.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    static LocalDateTime ceil(LocalDateTime timestamp) {
+        LocalDateTime floor = floor(timestamp);
+        return floor.equals(timestamp) ? floor : floor.plusHours(1);
+    }
+}
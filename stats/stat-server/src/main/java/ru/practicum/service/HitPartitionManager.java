@@ -0,0 +1,125 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Поддерживает помесячные секции таблицы hits: заранее создаёт будущие секции,
+ * выносит строки из секции по умолчанию в собственные секции и удаляет секции старше срока хранения.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HitPartitionManager {
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'hits_y'yyyy'm'MM");
+    private static final String DEFAULT_PARTITION = "hits_default";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${stat-server.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    @Value("${stat-server.partitions.retention-months:24}")
+    private int retentionMonths;
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${stat-server.partitions.check-interval:PT1H}")
+    public void maintainPartitions() {
+        try {
+            YearMonth current = YearMonth.now();
+            YearMonth oldestKept = current.minusMonths(retentionMonths);
+
+            TreeSet<YearMonth> required = new TreeSet<>();
+            for (int i = 0; i <= premakeMonths; i++) {
+                required.add(current.plusMonths(i));
+            }
+            findDefaultPartitionMonths().stream()
+                    .filter(month -> !month.isBefore(oldestKept))
+                    .forEach(required::add);
+            List<YearMonth> existing = findPartitionMonths();
+            required.removeAll(existing);
+            required.forEach(this::createPartition);
+
+            existing.stream()
+                    .filter(month -> month.isBefore(oldestKept))
+                    .forEach(this::dropPartition);
+            int deleted = jdbcTemplate.update("DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?",
+                    Timestamp.valueOf(oldestKept.atDay(1).atStartOfDay()));
+            if (deleted > 0) {
+                log.info("Из секции по умолчанию удалено {} hit старше срока хранения", deleted);
+            }
+        } catch (DataAccessException e) {
+            log.error("Ошибка при обслуживании секций таблицы hits", e);
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = PARTITION_NAME.format(month);
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        transactionTemplate.executeWithoutResult(status -> {
+            // блокировка секции по умолчанию не даёт параллельным вставкам попасть в переносимый диапазон
+            jdbcTemplate.execute("LOCK TABLE " + DEFAULT_PARTITION + " IN EXCLUSIVE MODE");
+            if (findPartitionMonths().contains(month)) {
+                return;
+            }
+            Boolean hasRows = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + " WHERE timestamp >= ? AND timestamp < ?)",
+                    Boolean.class, from, to);
+            if (Boolean.TRUE.equals(hasRows)) {
+                jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE hits INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                        + " WHERE timestamp >= ? AND timestamp < ? RETURNING *) "
+                        + "INSERT INTO " + name + " SELECT * FROM moved", from, to);
+                jdbcTemplate.execute("ALTER TABLE hits ATTACH PARTITION " + name
+                        + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+                log.info("Создана секция {}, перенесено {} hit из секции по умолчанию", name, moved);
+            } else {
+                jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF hits"
+                        + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+                log.info("Создана секция {}", name);
+            }
+        });
+    }
+
+    private void dropPartition(YearMonth month) {
+        String name = PARTITION_NAME.format(month);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+        log.info("Секция {} удалена по сроку хранения", name);
+    }
+
+    private List<YearMonth> findPartitionMonths() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        JOIN pg_class p ON p.oid = i.inhparent
+                        WHERE p.relname = 'hits' AND c.relname <> ?
+                        """, String.class, DEFAULT_PARTITION).stream()
+                .map(name -> YearMonth.parse(name, PARTITION_NAME))
+                .toList();
+    }
+
+    private List<YearMonth> findDefaultPartitionMonths() {
+        return jdbcTemplate.queryForList(
+                        "SELECT DISTINCT date_trunc('month', timestamp) FROM " + DEFAULT_PARTITION, Timestamp.class)
+                .stream()
+                .map(Timestamp::toLocalDateTime)
+                .map(LocalDateTime::toLocalDate)
+                .map(YearMonth::from)
+                .toList();
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * HyperLogLog-оценка количества уникальных значений с точностью p = 12 (4096 регистров по байту).
+ * Стандартная относительная ошибка 1.04 / sqrt(4096) ≈ 1.6%, примерно 95% оценок укладываются в ±3.3%.
+ * Скетчи объединяются поэлементным максимумом регистров, поэтому объединение идемпотентно.
+ */
+final class HyperLogLog {
+    static final int PRECISION = 12;
+    static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    HyperLogLog() {
+        this(new byte[REGISTERS]);
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length != REGISTERS) {
+            throw new IllegalArgumentException("Некорректный размер HyperLogLog: " + bytes.length);
+        }
+        return new HyperLogLog(bytes.clone());
+    }
+
+    void add(String value) {
+        long hash = hash(value);
+        int index = (int) (hash >>> (Long.SIZE - PRECISION));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION), Long.SIZE - PRECISION) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Объединяет другой скетч с текущим.
+     *
+     * @return true, если хотя бы один регистр изменился
+     */
+    boolean merge(HyperLogLog other) {
+        boolean changed = false;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    byte[] toBytes() {
+        return registers.clone();
+    }
+
+    private static long hash(String value) {
+        // FNV-1a с финализатором MurmurHash3 для равномерного распределения старших битов
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
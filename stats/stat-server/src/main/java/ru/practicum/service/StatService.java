@@ -1,13 +1,24 @@
 package ru.practicum.service;
 
 import ru.practicum.EndpointHitDto;
+import ru.practicum.HitBatchResult;
 import ru.practicum.ViewStats;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 public interface StatService {
     void createHit(EndpointHitDto dto);
 
-    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+    HitBatchResult createHits(List<EndpointHitDto> dtos);
+
+    List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                             boolean approximate);
+
+    /**
+     * Количество hit по id событий (uri вида /events/{id}); события без hit в результат не попадают.
+     * При пустом eventIds возвращаются все события, у которых есть hit.
+     */
+    Map<Long, Long> getEventHits(LocalDateTime start, LocalDateTime end, List<Long> eventIds, boolean unique);
 }
@@ -1,47 +1,223 @@
 package ru.practicum.service;
 
 import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.EndpointHitDto;
+import ru.practicum.HitBatchResult;
 import ru.practicum.ViewStats;
 import ru.practicum.mapper.EndpointHitMapper;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.HitRollup;
+import ru.practicum.model.HitSketch;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.HitSketchRepository;
 import ru.practicum.repository.StatRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class StatServiceImpl implements StatService {
     private final StatRepository statRepository;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final HitSketchRepository hitSketchRepository;
+    private final Validator validator;
+
+    @Value("${stat-server.ingest.batch-size:1000}")
+    private int batchSize;
 
     @Override
     public void createHit(EndpointHitDto dto) {
-        statRepository.save(EndpointHitMapper.toEndpointHit(dto));
+        EndpointHit hit = statRepository.save(EndpointHitMapper.toEndpointHit(dto));
+        hitRollupRepository.increment(toRollups(List.of(hit)));
+        updateSketches(List.of(hit));
+    }
+
+    /**
+     * Сохраняет пачку hit частями по batch-size, чтобы размер каждого запроса к базе не зависел от размера пачки.
+     * Hit упорядочены по корзине, поэтому строки корзин блокируются в одном порядке во всех транзакциях.
+     */
+    @Override
+    public HitBatchResult createHits(List<EndpointHitDto> dtos) {
+        List<EndpointHit> hits = dtos.stream()
+                .filter(dto -> dto != null && validator.validate(dto).isEmpty())
+                .map(EndpointHitMapper::toEndpointHit)
+                .sorted(Comparator.comparing(StatServiceImpl::bucketKey))
+                .toList();
+        for (int from = 0; from < hits.size(); from += batchSize) {
+            List<EndpointHit> chunk = hits.subList(from, Math.min(from + batchSize, hits.size()));
+            hitJdbcRepository.saveAll(chunk);
+            hitRollupRepository.increment(toRollups(chunk));
+            updateSketches(chunk);
+        }
+        return HitBatchResult.builder()
+                .accepted(hits.size())
+                .rejected(dtos.size() - hits.size())
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                    boolean approximate) {
         if (start.isAfter(end)) {
             throw new ValidationException("Некорректный диапазон времени: start позже end");
         }
 
+        if (!unique) {
+            return getHits(start, end, uris);
+        }
+        if (approximate) {
+            return getApproximateUniqueHits(start, end, uris);
+        }
+        return getExactUniqueHits(start, end, uris);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Long> getEventHits(LocalDateTime start, LocalDateTime end, List<Long> eventIds,
+                                        boolean unique) {
+        if (start.isAfter(end)) {
+            throw new ValidationException("Некорректный диапазон времени: start позже end");
+        }
+        return hitJdbcRepository.countEventHits(start, end, eventIds, unique);
+    }
+
+    private List<ViewStats> getExactUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
         if (uris == null || uris.isEmpty()) {
-            if (unique) {
-                return statRepository.findStatsUnique(start, end);
-            } else {
-                return statRepository.findStats(start, end);
-            }
+            return statRepository.findStatsUnique(start, end);
         } else {
-            if (unique) {
-                return statRepository.findStatsUniqueWithUris(start, end, uris);
+            return statRepository.findStatsUniqueWithUris(start, end, uris);
+        }
+    }
+
+    private List<ViewStats> getHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime bucketsFrom = HitBuckets.ceil(start);
+        LocalDateTime bucketsTo = HitBuckets.floor(end);
+        if (!bucketsFrom.isBefore(bucketsTo)) {
+            if (uris == null || uris.isEmpty()) {
+                return statRepository.findStats(start, end);
             } else {
                 return statRepository.findStatsWithUris(start, end, uris);
             }
         }
+
+        Map<AppUri, Long> hits = new HashMap<>();
+        addHits(hits, hitJdbcRepository.countHits(start, bucketsFrom, false, uris));
+        addHits(hits, hitRollupRepository.sumHits(bucketsFrom, bucketsTo, uris));
+        addHits(hits, hitJdbcRepository.countHits(bucketsTo, end, true, uris));
+        return hits.entrySet().stream()
+                .map(entry -> new ViewStats(entry.getKey().app(), entry.getKey().uri(), entry.getValue()))
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    private List<ViewStats> getApproximateUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        LocalDateTime bucketsFrom = HitBuckets.ceil(start);
+        // для перенесённой истории скетчей нет, её уникальные ip берутся из hits вместе с крайними корзинами
+        Optional<LocalDateTime> coveredFrom = hitSketchRepository.findCoveredFrom();
+        if (coveredFrom.isPresent() && bucketsFrom.isBefore(coveredFrom.get())) {
+            bucketsFrom = coveredFrom.get();
+        }
+        LocalDateTime bucketsTo = HitBuckets.floor(end);
+        if (!bucketsFrom.isBefore(bucketsTo)) {
+            return getExactUniqueHits(start, end, uris);
+        }
+
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        for (HitSketch sketch : hitSketchRepository.findSketches(bucketsFrom, bucketsTo, uris)) {
+            sketches.computeIfAbsent(new AppUri(sketch.getApp(), sketch.getUri()), key -> new HyperLogLog())
+                    .merge(HyperLogLog.fromBytes(sketch.getRegisters()));
+        }
+        List<EndpointHit> edgeHits = new ArrayList<>(hitJdbcRepository.findDistinctIps(start, bucketsFrom, false, uris));
+        edgeHits.addAll(hitJdbcRepository.findDistinctIps(bucketsTo, end, true, uris));
+        for (EndpointHit hit : edgeHits) {
+            sketches.computeIfAbsent(new AppUri(hit.getApp(), hit.getUri()), key -> new HyperLogLog())
+                    .add(hit.getIp());
+        }
+        return sketches.entrySet().stream()
+                .map(entry -> new ViewStats(entry.getKey().app(), entry.getKey().uri(), entry.getValue().estimate()))
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    private void addHits(Map<AppUri, Long> hits, List<ViewStats> stats) {
+        for (ViewStats viewStats : stats) {
+            hits.merge(new AppUri(viewStats.getApp(), viewStats.getUri()), viewStats.getHits(), Long::sum);
+        }
+    }
+
+    private List<HitRollup> toRollups(List<EndpointHit> hits) {
+        Map<BucketKey, Long> counts = hits.stream()
+                .collect(Collectors.groupingBy(StatServiceImpl::bucketKey, Collectors.counting()));
+        // одинаковый порядок строк во всех транзакциях исключает взаимные блокировки при upsert
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> HitRollup.builder()
+                        .app(entry.getKey().app())
+                        .uri(entry.getKey().uri())
+                        .bucketStart(entry.getKey().bucketStart())
+                        .hits(entry.getValue())
+                        .build())
+                .toList();
+    }
+
+    private void updateSketches(List<EndpointHit> hits) {
+        Map<BucketKey, HyperLogLog> batch = new TreeMap<>();
+        for (EndpointHit hit : hits) {
+            batch.computeIfAbsent(bucketKey(hit), key -> new HyperLogLog()).add(hit.getIp());
+        }
+        List<HitSketch> sketches = batch.entrySet().stream()
+                .map(entry -> HitSketch.builder()
+                        .app(entry.getKey().app())
+                        .uri(entry.getKey().uri())
+                        .bucketStart(entry.getKey().bucketStart())
+                        .registers(entry.getValue().toBytes())
+                        .build())
+                .toList();
+        // объединение скетчей идемпотентно, поэтому только что вставленные строки можно безопасно слить повторно
+        hitSketchRepository.insertMissing(sketches);
+        List<HitSketch> changed = new ArrayList<>();
+        for (HitSketch stored : hitSketchRepository.findForUpdate(sketches)) {
+            HyperLogLog merged = HyperLogLog.fromBytes(stored.getRegisters());
+            if (merged.merge(batch.get(new BucketKey(stored.getUri(), stored.getApp(), stored.getBucketStart())))) {
+                stored.setRegisters(merged.toBytes());
+                changed.add(stored);
+            }
+        }
+        hitSketchRepository.update(changed);
+    }
+
+    private static BucketKey bucketKey(EndpointHit hit) {
+        return new BucketKey(hit.getUri(), hit.getApp(), HitBuckets.floor(hit.getTimestamp()));
+    }
+
+    private record AppUri(String app, String uri) {
+    }
+
+    private record BucketKey(String uri, String app, LocalDateTime bucketStart) implements Comparable<BucketKey> {
+        private static final Comparator<BucketKey> ORDER = Comparator.comparing(BucketKey::uri)
+                .thenComparing(BucketKey::app)
+                .thenComparing(BucketKey::bucketStart);
+
+        @Override
+        public int compareTo(BucketKey other) {
+            return ORDER.compare(this, other);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,91 @@
-DROP TABLE IF EXISTS hits;
+CREATE TABLE IF NOT EXISTS hit_rollups (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    hits BIGINT NOT NULL,
+    CONSTRAINT pk_hit_rollups PRIMARY KEY (uri, app, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hit_rollups_bucket_start ON hit_rollups (bucket_start);
+
+CREATE TABLE IF NOT EXISTS hit_sketches (
+    app VARCHAR(255) NOT NULL,
+    uri VARCHAR(255) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    registers BYTEA NOT NULL,
+    CONSTRAINT pk_hit_sketches PRIMARY KEY (uri, app, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_hit_sketches_bucket_start ON hit_sketches (bucket_start);
+
+-- скетчи есть только у hit, сохранённых после перехода на hit_sketches; более ранние корзины
+-- approx-запросы считают по hits. NULL — скетчи есть для всех корзин
+CREATE TABLE IF NOT EXISTS hit_sketches_coverage (
+    covered_from TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- таблица hits из прежних версий схемы не секционирована: переименовываем её, чтобы перенести данные
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class c
+               WHERE c.relname = ''hits'' AND c.relkind = ''r''
+                 AND c.relnamespace = current_schema()::regnamespace) THEN
+        ALTER TABLE hits RENAME TO hits_legacy;
+    END IF;
+END';
 
 CREATE TABLE IF NOT EXISTS hits (
     id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     app VARCHAR(255) NOT NULL,
     uri VARCHAR(255) NOT NULL,
+    entity_id BIGINT,
     ip VARCHAR(255) NOT NULL,
-    timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL
-)
\ No newline at end of file
+    timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT pk_hits PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS hits_default PARTITION OF hits DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_hits_uri_timestamp ON hits (uri, timestamp);
+
+CREATE INDEX IF NOT EXISTS idx_hits_timestamp ON hits (timestamp);
+
+-- entity_id — id события из uri вида /events/{id}; по нему просмотры событий считаются без сравнения строк
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = current_schema() AND table_name = ''hits''
+                     AND column_name = ''entity_id'') THEN
+        ALTER TABLE hits ADD COLUMN entity_id BIGINT;
+        UPDATE hits SET entity_id = substring(uri FROM ''^/events/([0-9]{1,18})$'')::BIGINT
+        WHERE uri ~ ''^/events/[0-9]{1,18}$'';
+    END IF;
+END';
+
+CREATE INDEX IF NOT EXISTS idx_hits_entity_id ON hits (entity_id, timestamp, ip) WHERE entity_id IS NOT NULL;
+
+DO '
+BEGIN
+    IF to_regclass(''hits_legacy'') IS NOT NULL THEN
+        INSERT INTO hits (app, uri, entity_id, ip, timestamp)
+        SELECT app, uri, substring(uri FROM ''^/events/([0-9]{1,18})$'')::BIGINT, ip, timestamp FROM hits_legacy;
+        INSERT INTO hit_rollups (app, uri, bucket_start, hits)
+        SELECT app, uri, date_trunc(''hour'', timestamp), COUNT(*) FROM hits_legacy
+        GROUP BY app, uri, date_trunc(''hour'', timestamp)
+        ON CONFLICT (uri, app, bucket_start) DO NOTHING;
+        INSERT INTO hit_sketches_coverage (covered_from)
+        SELECT date_trunc(''hour'', MAX(timestamp)) + INTERVAL ''1 hour'' FROM hits_legacy;
+        DROP TABLE hits_legacy;
+    END IF;
+END';
+
+-- базы, перенесённые до появления hit_sketches_coverage: граница — последняя корзина агрегатов без скетча
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM hit_sketches_coverage) THEN
+        INSERT INTO hit_sketches_coverage (covered_from)
+        SELECT MAX(r.bucket_start) + INTERVAL ''1 hour'' FROM hit_rollups r
+        WHERE NOT EXISTS (SELECT 1 FROM hit_sketches s
+                          WHERE s.uri = r.uri AND s.app = r.app AND s.bucket_start = r.bucket_start);
+    END IF;
+END'
@@ -0,0 +1,112 @@
+package ru.practicum.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.EndpointHitDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Пачка hit больше stat-server.ingest.batch-size и с числом ключей корзин больше, чем помещается
+ * в параметры одного запроса PostgreSQL, сохраняется целиком.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class HitBatchTest {
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int EVENTS = 12_000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+    }
+
+    @Test
+    void batchLargerThanBatchSizeIsSavedCompletely() throws Exception {
+        LocalDateTime start = LocalDateTime.now().withNano(0).minusHours(6);
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < EVENTS; i++) {
+            // два hit на событие в разных часах: ключей корзин вдвое больше, чем событий
+            hits.add(hit(i, "10.0.0.1", start.plusMinutes(30)));
+            hits.add(hit(i, "10.0.0.2", start.plusHours(3)));
+        }
+        hits.add(hit(0, "", start.plusHours(1)));
+
+        mockMvc.perform(post("/hits/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsBytes(hits)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(2 * EVENTS))
+                .andExpect(jsonPath("$.rejected").value(1));
+
+        for (String precision : List.of("exact", "approx")) {
+            mockMvc.perform(get("/stats")
+                            .param("start", FORMATTER.format(start))
+                            .param("end", FORMATTER.format(LocalDateTime.now()))
+                            .param("uris", "/events/0", "/events/" + (EVENTS - 1))
+                            .param("unique", "true")
+                            .param("precision", precision))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(2))
+                    .andExpect(jsonPath("$[0].hits").value(2))
+                    .andExpect(jsonPath("$[1].hits").value(2));
+        }
+        mockMvc.perform(get("/stats")
+                        .param("start", FORMATTER.format(start))
+                        .param("end", FORMATTER.format(LocalDateTime.now()))
+                        .param("uris", "/events/" + (EVENTS / 2)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hits").value(2));
+    }
+
+    private static EndpointHitDto hit(int eventId, String ip, LocalDateTime timestamp) {
+        return EndpointHitDto.builder()
+                .app("main-service")
+                .uri("/events/" + eventId)
+                .ip(ip)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}